@@ -2,12 +2,15 @@ package com.pickle.picklecore;
 
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 import java.util.concurrent.*;
 import java.util.logging.*;
 
 // A class supervising the UI thread for ANR errors. Use
 // {@link #start()} and {@link #stop()} to control
 // when the UI thread is supervised
+// The supervised thread is sent a reusable heartbeat which records when it ran, a low priority checker thread
+// compares that against when the heartbeat was posted so stalls are measured without allocating per check
 public class ANRSupervisor {
 
     static ANRSupervisor instance;
@@ -15,170 +18,327 @@ public class ANRSupervisor {
     public static Logger logger = Logger.getLogger("ANR");
     public static void Log(Object log) { logger.log(Level.INFO, "com.pickle.picklecore [ANR] " + log); }
 
-    // The {@link ExecutorService} checking the UI thread
-    private ExecutorService mExecutor;
+    // Response policy flags, combine them to pick what happens when the supervised thread stalls
+    public static final int POLICY_LOG = 1; // Log the stall and its duration once it recovers
+    public static final int POLICY_CAPTURE_STACK = 2; // Capture the supervised thread stack when the stall is detected
+    public static final int POLICY_NOTIFY = 4; // Notify the registered ANRListener (e.g Unity)
+    public static final int POLICY_KILL = 8; // Kill the process if the thread is still stalled after the kill delay
 
-    // The {@link ANRSupervisorRunnable} running on a separate thread
-    public final ANRSupervisorRunnable mSupervisorRunnable;
+    public interface ANRListener {
+        // Called on the supervisor thread once the timeout is passed, mainThreadStack is empty without POLICY_CAPTURE_STACK
+        void OnMainThreadStall(long stallMilliseconds, String mainThreadStack);
+
+        // Called on the supervisor thread when a reported stall ends with the full stall duration
+        void OnMainThreadRecovered(long stallMilliseconds);
+
+        // Called on the supervisor thread right before POLICY_KILL kills the process with the stall profiler report (if enabled)
+        // Handle this synchronously (e.g log it to Crashlytics straight away) as the process is killed as soon as this returns
+        void OnMainThreadStallReport(long stallMilliseconds, String stallReport);
+    }
+
+    // The {@link Handler} to access the UI threads message queue
+    private final Handler mHandler;
+
+    // The low priority executor checking the UI thread
+    private final ScheduledExecutorService mExecutor;
+    private ScheduledFuture<?> mCheckFuture;
+
+    private volatile long mTimeoutMs;
+    private volatile long mCheckIntervalMs;
+    private volatile long mKillDelayMs = 1000L; // Extra time given before killing in case the stall was a false positive
+    private volatile int mPolicy = POLICY_LOG | POLICY_KILL;
+    private volatile ANRListener mListener;
+
+    // Uptime the heartbeat was last posted and last ran, a heartbeat is pending while ran < posted
+    private volatile long mHeartbeatPostedAt;
+    private volatile long mHeartbeatRanAt;
+
+    // Optional stack sampling once a stall passes the soft threshold (which can be lower than the timeout)
+    private volatile StallProfiler mProfiler;
+    private volatile long mProfilerThresholdMs;
+    private volatile long mProfilerSampleIntervalMs;
+
+    // Only touched by the checker thread
+    private boolean mIsStallReported;
+    private boolean mIsProfiling;
+
+    private final Runnable mHeartbeat = () -> mHeartbeatRanAt = SystemClock.uptimeMillis();
+    private final Runnable mCheck = this::Check;
 
     public ANRSupervisor(Looper looper, int timeoutCheckDuration, int checkInterval)
     {
-        mExecutor = Executors.newSingleThreadExecutor();
-        mSupervisorRunnable = new ANRSupervisorRunnable(looper, timeoutCheckDuration, checkInterval);
+        this(looper, timeoutCheckDuration * 1000L, checkInterval * 1000L);
+    }
+
+    public ANRSupervisor(Looper looper, long timeoutMilliseconds, long checkIntervalMilliseconds)
+    {
+        mHandler = new Handler(looper);
+        mTimeoutMs = timeoutMilliseconds;
+        mCheckIntervalMs = checkIntervalMilliseconds;
+
+        mExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(() -> {
+                android.os.Process.setThreadPriority(android.os.Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, "PickleANRSupervisor");
+
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     public static void create()
+    {
+        create(2000L, 5000L);
+    }
+
+    public static synchronized void create(long timeoutMilliseconds, long checkIntervalMilliseconds)
     {
         if (instance == null)
         {
-            instance = new ANRSupervisor(Looper.getMainLooper(), 2, 5);
+            instance = new ANRSupervisor(Looper.getMainLooper(), timeoutMilliseconds, checkIntervalMilliseconds);
+        }
+        else
+        {
+            Configure(timeoutMilliseconds, checkIntervalMilliseconds);
         }
     }
 
-    public static synchronized void start()
+    // Change the thresholds, takes effect from the next check if supervision is already running
+    public static synchronized void Configure(long timeoutMilliseconds, long checkIntervalMilliseconds)
     {
-        synchronized (instance.mSupervisorRunnable)
+        if (instance == null) return;
+
+        instance.mTimeoutMs = Math.max(timeoutMilliseconds, 1L);
+        instance.mCheckIntervalMs = Math.max(checkIntervalMilliseconds, 1L);
+
+        if (instance.mCheckFuture != null)
         {
-            if (instance.mSupervisorRunnable.isStopped())
-            {
-                instance.mExecutor.execute(instance.mSupervisorRunnable);
-            }
-            else
-            {
-                instance.mSupervisorRunnable.resume();
-            }
+            stop();
+            start();
         }
     }
 
-    // Stops the supervision. The stop is delayed, so if start() is called right after stop(),
-    // both methods will have no effect. There will be at least one more ANR check before the supervision is stopped.
-    public static synchronized void stop()
+    public static void SetPolicy(int policy)
     {
-        instance.mSupervisorRunnable.stop();
+        if (instance != null) instance.mPolicy = policy;
     }
-}
 
-// A {@link Runnable} testing the UI thread every 5 seconds until {@link #stop()} is called
-class ANRSupervisorRunnable implements Runnable
-{
-    // The {@link Handler} to access the UI threads message queue
-    private Handler mHandler;
+    public static void SetKillDelay(long killDelayMilliseconds)
+    {
+        if (instance != null) instance.mKillDelayMs = Math.max(killDelayMilliseconds, 0L);
+    }
 
-    // The stop flag
-    private boolean mStopped;
+    public static void SetListener(ANRListener listener)
+    {
+        if (instance != null) instance.mListener = listener;
+    }
 
-    // Flag indicating the stop was performed
-    private boolean mStopCompleted = true;
+    // Sample the supervised thread stack every sampleIntervalMilliseconds once a stall passes softThresholdMilliseconds
+    // Up to capacity unique stacks are kept for the latest stall, see GetStallReport()
+    public static synchronized void EnableStallProfiler(long softThresholdMilliseconds, long sampleIntervalMilliseconds, int capacity)
+    {
+        if (instance == null) return;
 
-    private int mTimeoutCheck;
-    private int mCheckInterval;
-    private int mFalsePositiveCheckDelay = 1;
-    private int mMaxReportSendWaitDuration = 5;
+        instance.mProfilerThresholdMs = Math.max(softThresholdMilliseconds, 0L);
+        instance.mProfilerSampleIntervalMs = Math.max(sampleIntervalMilliseconds, 1L);
+        instance.mProfiler = new StallProfiler(capacity);
 
-    public ANRSupervisorRunnable(Looper looper, int timeoutCheckDuration, int checkInterval)
+        // The check tick depends on the sample interval
+        if (instance.mCheckFuture != null)
+        {
+            stop();
+            start();
+        }
+    }
+
+    public static synchronized void DisableStallProfiler()
     {
-        mHandler = new Handler(looper);
-        mTimeoutCheck = timeoutCheckDuration;
-        mCheckInterval = checkInterval;
+        if (instance != null) instance.mProfiler = null;
     }
 
-    @Override public void run()
+    // Report of the stacks sampled during the latest stall, empty if the profiler is disabled or nothing was sampled
+    public static String GetStallReport()
+    {
+        StallProfiler profiler = instance != null ? instance.mProfiler : null;
+
+        return profiler != null ? profiler.GetReport() : "";
+    }
+
+    public static synchronized void start()
     {
-        this.mStopCompleted = false;
+        if (instance == null || instance.mCheckFuture != null) return;
+
+        // Tick fast enough to notice a missed heartbeat shortly after the timeout, heartbeats are still only sent every check interval
+        long tickMs = Math.max(Math.min(instance.mTimeoutMs, instance.mCheckIntervalMs) / 2L, 1L);
+
+        if (instance.mProfiler != null)
+            tickMs = Math.min(tickMs, instance.mProfilerSampleIntervalMs);
+
+        instance.mCheckFuture = instance.mExecutor.scheduleWithFixedDelay(instance.mCheck, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Stops the supervision, a check already in progress is allowed to finish
+    public static synchronized void stop()
+    {
+        if (instance == null || instance.mCheckFuture == null) return;
+
+        instance.mCheckFuture.cancel(false);
+        instance.mCheckFuture = null;
+    }
+
+    // Milliseconds the supervised thread has currently been unresponsive for, 0 if the last heartbeat was answered
+    public static long GetCurrentStallMilliseconds()
+    {
+        if (instance == null) return 0L;
+
+        long postedAt = instance.mHeartbeatPostedAt;
+
+        return instance.mHeartbeatRanAt >= postedAt ? 0L : SystemClock.uptimeMillis() - postedAt;
+    }
 
-        // Loop until stop() was called or thread is interrupted
-        while (!Thread.interrupted())
+    private void Check()
+    {
+        long now = SystemClock.uptimeMillis();
+        long postedAt = mHeartbeatPostedAt;
+        long ranAt = mHeartbeatRanAt;
+
+        if (ranAt >= postedAt)
         {
-            try
+            // Last heartbeat was answered
+            if (mIsStallReported)
             {
-                Thread.sleep(mCheckInterval * 1000L);
-
-                // Create new callback
-                ANRSupervisorCallback callback = new ANRSupervisorCallback();
-
-                // Perform test, Handler should run the callback within X seconds
-                synchronized (callback)
-                {
-                    this.mHandler.post(callback);
-                    callback.wait(mTimeoutCheck * 1000L);
-
-                    // Check if called
-                    if (!callback.isCalled())
-                    {
-                        ANRSupervisor.Log("Thread " + this.mHandler.getLooper() + " DID NOT respond within " + mTimeoutCheck + " seconds");
-                        for (int timePassed = 0; timePassed < mMaxReportSendWaitDuration * 1000; timePassed += 100)
-                        {
-                            if (timePassed >= mFalsePositiveCheckDelay * 1000)
-                            {
-                                break;
-                            }
-                            Thread.sleep(100);
-                        }
-
-                        if (!callback.isCalled())
-                        {
-                            // If the supervised thread still did not respond, quit the app.
-                            android.os.Process.killProcess(android.os.Process.myPid());
-
-                            System.exit(0); // SNAFU
-                        }
-                    }
-                }
-
-                // Check if stopped
-                this.checkStopped();
+                mIsStallReported = false;
+                OnRecovered(ranAt - postedAt);
             }
-            catch (InterruptedException e)
+
+            // Keep the samples around after recovering so the report can still be fetched
+            mIsProfiling = false;
+
+            if (now - ranAt >= mCheckIntervalMs)
             {
-                ANRSupervisor.Log("Interruption caught.");
-                break;
+                mHeartbeatPostedAt = now;
+                mHandler.post(mHeartbeat);
             }
+
+            return;
         }
 
-        // Set stop completed flag
-        this.mStopCompleted = true;
+        long stallMs = now - postedAt;
+
+        StallProfiler profiler = mProfiler;
+
+        if (profiler != null && stallMs >= mProfilerThresholdMs)
+        {
+            if (!mIsProfiling)
+            {
+                mIsProfiling = true;
+                profiler.Reset();
+            }
+
+            profiler.Sample(mHandler.getLooper().getThread(), stallMs);
+        }
+
+        if (stallMs < mTimeoutMs) return;
+
+        int policy = mPolicy;
+
+        if (!mIsStallReported)
+        {
+            mIsStallReported = true;
+            OnStall(stallMs, policy);
+        }
+
+        if ((policy & POLICY_KILL) != 0 && stallMs >= mTimeoutMs + mKillDelayMs)
+        {
+            Log("Thread " + mHandler.getLooper() + " still unresponsive after " + stallMs + "ms, killing process");
+
+            OnBeforeKill(stallMs, policy);
+
+            // If the supervised thread still did not respond, quit the app.
+            android.os.Process.killProcess(android.os.Process.myPid());
+
+            System.exit(0); // SNAFU
+        }
     }
 
-    private synchronized void checkStopped() throws InterruptedException
+    private void OnStall(long stallMs, int policy)
     {
-        if (this.mStopped)
+        if ((policy & POLICY_LOG) != 0)
+            Log("Thread " + mHandler.getLooper() + " DID NOT respond within " + mTimeoutMs + "ms");
+
+        String mainThreadStack = "";
+
+        if ((policy & POLICY_CAPTURE_STACK) != 0)
         {
-            // Wait 1 second
-            Thread.sleep(1000);
+            StringBuilder stackBuilder = new StringBuilder();
+
+            for (StackTraceElement frame : mHandler.getLooper().getThread().getStackTrace())
+                stackBuilder.append(frame).append('\n');
+
+            mainThreadStack = stackBuilder.toString();
+
+            if ((policy & POLICY_LOG) != 0)
+                Log("Main thread stack:\n" + mainThreadStack);
+        }
+
+        ANRListener listener = mListener;
 
-            // Break if still stopped
-            if (this.mStopped)
+        if ((policy & POLICY_NOTIFY) != 0 && listener != null)
+        {
+            try
             {
-                throw new InterruptedException();
+                listener.OnMainThreadStall(stallMs, mainThreadStack);
+            }
+            catch (Exception e)
+            {
+                Log("ANRListener.OnMainThreadStall threw - " + e);
             }
         }
     }
 
-    synchronized void stop()
+    private void OnBeforeKill(long stallMs, int policy)
     {
-        this.mStopped = true;
-    }
+        StallProfiler profiler = mProfiler;
+        String stallReport = profiler != null ? profiler.GetReport() : "";
 
-    synchronized void resume()
-    {
-        this.mStopped = false;
+        if ((policy & POLICY_LOG) != 0 && !stallReport.isEmpty())
+            Log("Stall report:\n" + stallReport);
+
+        ANRListener listener = mListener;
+
+        if ((policy & POLICY_NOTIFY) != 0 && listener != null)
+        {
+            try
+            {
+                listener.OnMainThreadStallReport(stallMs, stallReport);
+            }
+            catch (Exception e)
+            {
+                Log("ANRListener.OnMainThreadStallReport threw - " + e);
+            }
+        }
     }
 
-    synchronized boolean isStopped() { return this.mStopCompleted; }
-}
+    private void OnRecovered(long stallMs)
+    {
+        int policy = mPolicy;
 
-// A {@link Runnable} which calls {@link #notifyAll()} when run.
-class ANRSupervisorCallback implements Runnable
-{
-    private boolean mCalled;
+        if ((policy & POLICY_LOG) != 0)
+            Log("Thread " + mHandler.getLooper() + " recovered after stalling for " + stallMs + "ms");
 
-    public ANRSupervisorCallback() { super(); }
+        ANRListener listener = mListener;
 
-    @Override public synchronized void run()
-    {
-        this.mCalled = true;
-        this.notifyAll();
+        if ((policy & POLICY_NOTIFY) != 0 && listener != null)
+        {
+            try
+            {
+                listener.OnMainThreadRecovered(stallMs);
+            }
+            catch (Exception e)
+            {
+                Log("ANRListener.OnMainThreadRecovered threw - " + e);
+            }
+        }
     }
-
-    synchronized boolean isCalled() { return this.mCalled; }
-}
\ No newline at end of file
+}
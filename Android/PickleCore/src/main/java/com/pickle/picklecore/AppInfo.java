@@ -1,18 +1,10 @@
 package com.pickle.picklecore;
 
 import android.Manifest;
-import android.annotation.SuppressLint;
 import android.content.Context;
-import android.content.pm.ApplicationInfo;
-import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
-import android.os.Build;
 import android.util.Log;
 
-import java.io.File;
-import java.util.ArrayList;
-import java.util.List;
-
 public class AppInfo {
 
     public static String GetSelfPackageName(Context ctx) {
@@ -21,167 +13,74 @@ public class AppInfo {
 
     // Time since the app was installed OR updated
     public static long GetInstallTimestamp(Context ctx) {
-        if(ctx == null) return 0L;
-
-        // Get app package name
-        String packageName = GetSelfPackageName(ctx);
-
-        if (packageName.isEmpty()) {
-            Log.e("PicklePKG", "ApplicationInfo.GetInstallTimestamp(..) GetSelfPackageName() was empty!");
-            return 0L;
-        }
-
-        // Get app package manager reference
-        PackageManager ctxPackageManager = ctx.getPackageManager();
-
-        if (ctxPackageManager == null) {
-            Log.e("PicklePKG", "ApplicationInfo.GetInstallTimestamp(..) failed to get getPackageManager()");
-            return 0L;
-        }
-
-        // Get app info
-        ApplicationInfo appInfo = null;
-
-        try {
-            if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU){
-                appInfo = ctxPackageManager.getApplicationInfo(packageName, PackageManager.ApplicationInfoFlags.of(0L));
-            } else {
-                appInfo = ctxPackageManager.getApplicationInfo(packageName, 0);
-            }
-        } catch (PackageManager.NameNotFoundException e) {
-            Log.e("PicklePKG", "ApplicationInfo.GetInstallTimestamp(..) package name " + packageName + " not installed? - " + e);
-            return 0L;
-        }
-
-        if (appInfo == null) {
-            Log.e("PicklePKG", "ApplicationInfo.GetInstallTimestamp(..) appInfo was null!");
-            return 0L;
-        }
-
-        String appFile = appInfo.sourceDir;
-
-        if (appFile.isEmpty()) {
-            Log.e("PicklePKG", "ApplicationInfo.GetInstallTimestamp(..) appFile is empty!");
-            return 0L;
-        }
+        AppMetadata metadata = AppMetadata.Get(ctx);
 
-        long installTimestamp = 0L;
-
-        try {
-            installTimestamp = new File(appFile).lastModified();
-        } catch (Exception e) {
-            Log.e("PicklePKG", "ApplicationInfo.GetInstallTimestamp(..) failed to get appFile last modified time! - " + e);
-            return 0L;
-        }
-
-        return installTimestamp;
+        return metadata != null ? metadata.installTimestamp : 0L;
     }
 
     // Time since app was initially installed (Updates do not affect this, but reinstalling the app does)
     public static long GetInitialInstallTimestamp(Context ctx) {
-        if(ctx == null) return 0L;
-
-        // Get app package name
-        String packageName = GetSelfPackageName(ctx);
+        AppMetadata metadata = AppMetadata.Get(ctx);
 
-        if (packageName.isEmpty()) {
-            Log.e("PicklePKG", "ApplicationInfo.GetInitialInstallTimestamp(..) GetSelfPackageName() was empty!");
-            return 0L;
-        }
-
-        // Get app package manager reference
-        PackageManager ctxPackageManager = ctx.getPackageManager();
-
-        if (ctxPackageManager == null) {
-            Log.e("PicklePKG", "ApplicationInfo.GetInitialInstallTimestamp(..) failed to get getPackageManager()");
-            return 0L;
-        }
+        return metadata != null ? metadata.initialInstallTimestamp : 0L;
+    }
 
-        // Get package info
-        PackageInfo packageInfo = null;
+    // The whole AppMetadata record in one call, see the AppMetadata.SLOT_* constants for the layout
+    public static long[] GetAppMetadata(Context ctx) {
+        long[] values = new long[AppMetadata.SLOT_COUNT];
 
-        try {
-            if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU){
-                packageInfo = ctxPackageManager.getPackageInfo(packageName, PackageManager.PackageInfoFlags.of(0L));
-            } else {
-                packageInfo = ctxPackageManager.getPackageInfo(packageName, 0);
-            }
-        } catch (PackageManager.NameNotFoundException e) {
-            Log.e("PicklePKG", "ApplicationInfo.GetInitialInstallTimestamp(..) package name " + packageName + " not installed? - " + e);
-            return 0L;
-        }
+        AppMetadata metadata = AppMetadata.Get(ctx);
 
-        if (packageInfo == null) {
-            Log.e("PicklePKG", "ApplicationInfo.GetInitialInstallTimestamp(..) packageInfo was null!");
-            return 0L;
+        if(metadata != null) {
+            values[AppMetadata.SLOT_INSTALL_TIMESTAMP] = metadata.installTimestamp;
+            values[AppMetadata.SLOT_INITIAL_INSTALL_TIMESTAMP] = metadata.initialInstallTimestamp;
+            values[AppMetadata.SLOT_BAD_PERMISSION_FLAGS] = metadata.badPermissionFlags;
         }
 
-        long installTimestamp = 0L;
+        values[AppMetadata.SLOT_RUN_ID] = GetRunId(ctx);
 
-        try {
-            installTimestamp = packageInfo.firstInstallTime;
-        } catch (Exception e) {
-            Log.e("PicklePKG", "ApplicationInfo.GetInitialInstallTimestamp(..) failed to get appFile last modified time! - " + e);
-            return 0L;
-        }
-
-        return installTimestamp;
+        return values;
     }
 
-    @SuppressLint("QueryPermissionsNeeded")
+    // Comma separated list of installed packages containing the searchString (or every package if it's empty)
+    // Prefer InstalledPackages.Query(..) which avoids building and splitting one giant string
     public static String GetPackageList(Context ctx, final String searchString) {
         if(ctx == null) return "";
 
-        // Get app package manager reference
-        PackageManager ctxPackageManager = ctx.getPackageManager();
+        boolean hasSearchString = searchString != null && !searchString.isEmpty();
 
-        if (ctxPackageManager == null) {
-            Log.e("PicklePKG", "ApplicationInfo.GetPackageList(..) failed to get getPackageManager()");
-            return "";
-        }
+        String[] packageList = InstalledPackages.Query(ctx, hasSearchString ? InstalledPackages.MATCH_SUBSTRING : InstalledPackages.MATCH_ALL,
+                hasSearchString ? new String[]{ searchString } : null, 0, 0);
 
-        // Get a list of installed applications on the device
-        List<ApplicationInfo> packageList = new ArrayList<>();
-
-        // getInstalledApplications will no longer return a list of installed apps from android 11+ without a dangerous system permission
-        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU){
-            packageList = ctxPackageManager.getInstalledApplications(PackageManager.ApplicationInfoFlags.of(0L));
-        } else {
-            packageList = ctxPackageManager.getInstalledApplications(0);
-        }
-
-        if (packageList.isEmpty()) {
-            //Log.e("PicklePKG", "ApplicationInfo.GetPackageList(..) packageList was empty!");
+        // Make sure the finalList isn't empty
+        if (packageList.length <= 0) {
+            Log.e("PicklePKG", "ApplicationInfo.GetPackageList(..) finalList was empty!");
             return "";
         }
 
         // We have a list built of all packages but we need to convert them into a comma separated string
         StringBuilder finalList = new StringBuilder();
 
-        // Iterate through the packages we have collected, appending package names to the StringBuilder
-        for (ApplicationInfo listItem : packageList) {
-            // Skip applications with null or empty className values
-            if (listItem.packageName == null) continue;
-
-            // Check if the package name matched the searchString filter we defined (if any)
-            boolean isFilterMatch = (searchString.isEmpty() || (!searchString.isEmpty() && listItem.packageName.toLowerCase().contains(searchString)));
-
-            if (isFilterMatch) {
-                finalList.append(listItem.packageName);
-                finalList.append(",");
-            }
-        }
-
-        // Make sure the finalList isn't empty
-        if (finalList.length() <= 0) {
-            Log.e("PicklePKG", "ApplicationInfo.GetPackageList(..) finalList was empty!");
-            return "";
+        for (String packageName : packageList) {
+            finalList.append(packageName);
+            finalList.append(",");
         }
 
         // Return the final comma separated package list
         return finalList.toString();
     }
 
+    // Check many candidate packages at once (e.g cross promo apps), one entry per candidate which is true if it's installed
+    // Looked up in a hashed set of the cached installed packages rather than searching the GetPackageList(..) string for each
+    public static boolean[] ArePackagesInstalled(Context ctx, String[] packageNames) {
+        if(ctx == null){
+            Log.e("PicklePKG", "ApplicationInfo.ArePackagesInstalled(..) context was null!");
+            return new boolean[packageNames != null ? packageNames.length : 0];
+        }
+
+        return InstalledPackages.AreInstalled(ctx, packageNames);
+    }
+
     // Check for red flag permissions usually added by APK hackers to create hacked versions of the app
     public static boolean DoesAppContainBadPermissions(Context ctx)
     {
@@ -190,35 +89,9 @@ public class AppInfo {
             return false;
         }
 
-        // Get app package name
-        String packageName = GetSelfPackageName(ctx);
-
-        if (packageName.isEmpty()) {
-            Log.e("PicklePKG", "ApplicationInfo.DoesAppContainBadPermissions(..) GetSelfPackageName() was empty!");
-            return false;
-        }
-
-        // Get app package manager reference
-        PackageManager ctxPackageManager = ctx.getPackageManager();
-
-        if (ctxPackageManager == null) {
-            Log.e("PicklePKG", "ApplicationInfo.DoesAppContainBadPermissions(..) failed to get getPackageManager()");
-            return false;
-        }
-
-        if(ctxPackageManager.checkPermission(Manifest.permission.REQUEST_DELETE_PACKAGES, packageName) == PackageManager.PERMISSION_GRANTED)
-            return true;
-
-        if(ctxPackageManager.checkPermission(Manifest.permission.REQUEST_INSTALL_PACKAGES, packageName) == PackageManager.PERMISSION_GRANTED)
-            return true;
-
-        if(ctxPackageManager.checkPermission(Manifest.permission.DELETE_PACKAGES, packageName) == PackageManager.PERMISSION_GRANTED)
-            return true;
-
-        if(ctxPackageManager.checkPermission(Manifest.permission.INSTALL_PACKAGES, packageName) == PackageManager.PERMISSION_GRANTED)
-            return true;
+        AppMetadata metadata = AppMetadata.Get(ctx);
 
-        return false;
+        return metadata != null && metadata.badPermissionFlags != 0;
     }
 
     // Sneaky alternative check for bad permissions in case the above function is patched out
@@ -236,7 +109,9 @@ public class AppInfo {
         if(DoesAppContainBadPermissions(ctx)){
             return 58382;
         } else {
-            // Get app package name
+            // Recheck through the package manager directly rather than the cached AppMetadata flags
+            // DoesAppContainBadPermissions(..) reads, so patching either of those out is still caught here
+            // This is a handful of IPCs but it's only called once per run
             String packageName = GetSelfPackageName(ctx);
 
             if (packageName.isEmpty()) {
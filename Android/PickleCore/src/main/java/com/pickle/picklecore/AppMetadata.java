@@ -0,0 +1,127 @@
+package com.pickle.picklecore;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.util.Log;
+
+import java.io.File;
+
+// Everything AppInfo reports about our own package, built once per process from a single getPackageInfo(GET_PERMISSIONS) call
+// None of these values can change while the process is running (an update restarts the app) so every accessor is a field read
+public class AppMetadata {
+
+    // Bad permission flags, set when the permission is requested and granted
+    public static final int BAD_PERMISSION_REQUEST_DELETE_PACKAGES = 1;
+    public static final int BAD_PERMISSION_REQUEST_INSTALL_PACKAGES = 2;
+    public static final int BAD_PERMISSION_DELETE_PACKAGES = 4;
+    public static final int BAD_PERMISSION_INSTALL_PACKAGES = 8;
+
+    // Slot indexes of the array returned by AppInfo.GetAppMetadata(..)
+    public static final int SLOT_INSTALL_TIMESTAMP = 0;
+    public static final int SLOT_INITIAL_INSTALL_TIMESTAMP = 1;
+    public static final int SLOT_BAD_PERMISSION_FLAGS = 2;
+    public static final int SLOT_RUN_ID = 3;
+    public static final int SLOT_COUNT = 4;
+
+    private static volatile AppMetadata current;
+
+    public final long installTimestamp; // Time the app was installed OR updated
+    public final long initialInstallTimestamp; // Time the app was first installed (updates do not affect this, reinstalling does)
+    public final int badPermissionFlags;
+
+    private AppMetadata(long inInstallTimestamp, long inInitialInstallTimestamp, int inBadPermissionFlags) {
+        installTimestamp = inInstallTimestamp;
+        initialInstallTimestamp = inInitialInstallTimestamp;
+        badPermissionFlags = inBadPermissionFlags;
+    }
+
+    // Returns the metadata or null if the package info couldn't be read (it'll be retried on the next call)
+    public static AppMetadata Get(Context ctx) {
+        AppMetadata metadata = current;
+
+        if(metadata != null || ctx == null) return metadata;
+
+        synchronized (AppMetadata.class) {
+            if(current == null)
+                current = Create(ctx);
+
+            return current;
+        }
+    }
+
+    private static AppMetadata Create(Context ctx) {
+        // Get app package name
+        String packageName = AppInfo.GetSelfPackageName(ctx);
+
+        if (packageName.isEmpty()) {
+            Log.e("PicklePKG", "AppMetadata.Create(..) GetSelfPackageName() was empty!");
+            return null;
+        }
+
+        // Get app package manager reference
+        PackageManager ctxPackageManager = ctx.getPackageManager();
+
+        if (ctxPackageManager == null) {
+            Log.e("PicklePKG", "AppMetadata.Create(..) failed to get getPackageManager()");
+            return null;
+        }
+
+        // Get package info, this includes the application info and requested permissions so no other queries are needed
+        PackageInfo packageInfo = null;
+
+        try {
+            if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU){
+                packageInfo = ctxPackageManager.getPackageInfo(packageName, PackageManager.PackageInfoFlags.of(PackageManager.GET_PERMISSIONS));
+            } else {
+                packageInfo = ctxPackageManager.getPackageInfo(packageName, PackageManager.GET_PERMISSIONS);
+            }
+        } catch (PackageManager.NameNotFoundException e) {
+            Log.e("PicklePKG", "AppMetadata.Create(..) package name " + packageName + " not installed? - " + e);
+            return null;
+        }
+
+        if (packageInfo == null) {
+            Log.e("PicklePKG", "AppMetadata.Create(..) packageInfo was null!");
+            return null;
+        }
+
+        long installTimestamp = 0L;
+
+        if (packageInfo.applicationInfo != null && packageInfo.applicationInfo.sourceDir != null && !packageInfo.applicationInfo.sourceDir.isEmpty()) {
+            try {
+                installTimestamp = new File(packageInfo.applicationInfo.sourceDir).lastModified();
+            } catch (Exception e) {
+                Log.e("PicklePKG", "AppMetadata.Create(..) failed to get appFile last modified time! - " + e);
+            }
+        } else {
+            Log.e("PicklePKG", "AppMetadata.Create(..) appFile is empty!");
+        }
+
+        int badPermissionFlags = 0;
+
+        if (packageInfo.requestedPermissions != null && packageInfo.requestedPermissionsFlags != null) {
+            for (int i=0;i < packageInfo.requestedPermissions.length && i < packageInfo.requestedPermissionsFlags.length;++i) {
+                if ((packageInfo.requestedPermissionsFlags[i] & PackageInfo.REQUESTED_PERMISSION_GRANTED) == 0) continue;
+
+                badPermissionFlags |= GetBadPermissionFlag(packageInfo.requestedPermissions[i]);
+            }
+        }
+
+        return new AppMetadata(installTimestamp, packageInfo.firstInstallTime, badPermissionFlags);
+    }
+
+    private static int GetBadPermissionFlag(String permission) {
+        if (permission == null) return 0;
+
+        switch (permission) {
+            case Manifest.permission.REQUEST_DELETE_PACKAGES: return BAD_PERMISSION_REQUEST_DELETE_PACKAGES;
+            case Manifest.permission.REQUEST_INSTALL_PACKAGES: return BAD_PERMISSION_REQUEST_INSTALL_PACKAGES;
+            case Manifest.permission.DELETE_PACKAGES: return BAD_PERMISSION_DELETE_PACKAGES;
+            case Manifest.permission.INSTALL_PACKAGES: return BAD_PERMISSION_INSTALL_PACKAGES;
+            default: return 0;
+        }
+    }
+}
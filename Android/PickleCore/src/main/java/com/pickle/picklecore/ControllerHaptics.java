@@ -0,0 +1,295 @@
+package com.pickle.picklecore;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.hardware.input.InputManager;
+import android.os.Build;
+import android.os.CombinedVibration;
+import android.os.VibrationEffect;
+import android.os.Vibrator;
+import android.os.VibratorManager;
+import android.util.Log;
+import android.util.SparseArray;
+import android.view.InputDevice;
+
+import java.util.Arrays;
+
+import androidx.annotation.RequiresApi;
+
+// Registry of connected controllers which can vibrate, each controller's motors are resolved once when it connects
+// and kept up to date by an InputDeviceListener so a rumble is a map lookup plus one vibrate rather than
+// a walk over every input device and its vibrator manager on every call, Rumble(..) drives both motors in one CombinedVibration
+// Controller vibration needs the VibratorManager so this is API 31+ only, every call does nothing on older devices
+public class ControllerHaptics {
+
+    // Pass as the controller id to target every connected controller
+    public static final int ALL_CONTROLLERS = -1;
+
+    private static class Controller {
+        final VibratorManager vibratorManager;
+        final Vibrator lowFrequencyVibrator; // Left motor, intense crashes/explosions
+        final Vibrator highFrequencyVibrator; // Right motor, subtle taps and haptic effects (null if the controller only has one motor)
+        final int lowFrequencyVibratorId, highFrequencyVibratorId; // Ids within the vibrator manager, high is -1 with only one motor
+
+        Controller(VibratorManager inVibratorManager, Vibrator inLowFrequencyVibrator, Vibrator inHighFrequencyVibrator, int inLowFrequencyVibratorId, int inHighFrequencyVibratorId) {
+            vibratorManager = inVibratorManager;
+            lowFrequencyVibrator = inLowFrequencyVibrator;
+            highFrequencyVibrator = inHighFrequencyVibrator;
+            lowFrequencyVibratorId = inLowFrequencyVibratorId;
+            highFrequencyVibratorId = inHighFrequencyVibratorId;
+        }
+    }
+
+    // Copied on write so rumble calls read it without locking, it only changes when a controller is connected or disconnected
+    private static volatile SparseArray<Controller> controllers = new SparseArray<>();
+    private static volatile boolean isScanned;
+    private static volatile boolean isListening;
+
+    // Input device ids seen by the last scan, used to spot hotplug when there's no listener
+    private static volatile int[] scannedDeviceIds = new int[0];
+
+    // Scans the connected controllers and starts listening for hotplug (it's also done on the first rumble)
+    // Without a context there's no listener so the registry is rescanned whenever the connected input devices differ from the last scan,
+    // the InputManager keeps its own cache of device ids so comparing them is much cheaper than resolving every device's vibrators
+    public static void Init(Context ctx) {
+        if(Build.VERSION.SDK_INT < Build.VERSION_CODES.S) return;
+
+        if(!isScanned || (!isListening && !Arrays.equals(InputDevice.getDeviceIds(), scannedDeviceIds)))
+            Rescan();
+
+        if(ctx != null && !isListening)
+            RegisterDeviceListener(ctx);
+    }
+
+    // Device ids of the connected controllers which can vibrate
+    public static int[] GetControllerIds() {
+        SparseArray<Controller> currentControllers = controllers;
+        int[] controllerIds = new int[currentControllers.size()];
+
+        for(int i=0;i < controllerIds.length;++i)
+            controllerIds[i] = currentControllers.keyAt(i);
+
+        return controllerIds;
+    }
+
+    // Vibrates one motor of the controller (or every controller with ALL_CONTROLLERS), strength is 1 to 255, 0 or a duration of 0 stops it
+    // If the controller doesn't have a high frequency motor the low frequency motor is used at minimum strength instead
+    @SuppressLint("MissingPermission")
+    public static void Vibrate(Context ctx, int controllerId, boolean lowFrequency, long milliseconds, int strength) {
+        if(Build.VERSION.SDK_INT < Build.VERSION_CODES.S) return;
+
+        if(strength < 0 || strength > 255) return;
+
+        ForEachController(ctx, controllerId, controller -> VibrateMotor(controller, lowFrequency, milliseconds, strength));
+    }
+
+    // Drives both motors together, strengths are 0 to 255 (0 leaves that motor off), both 0 or a duration of 0 stops the controller
+    // Both motors are started by a single CombinedVibration so they start in the same binder call and stay in sync
+    // Controllers with only one motor use the low frequency strength, or the minimum strength if only the high frequency motor was asked for
+    @SuppressLint("MissingPermission")
+    public static void Rumble(Context ctx, int controllerId, int lowFrequencyStrength, int highFrequencyStrength, long milliseconds) {
+        if(Build.VERSION.SDK_INT < Build.VERSION_CODES.S) return;
+
+        lowFrequencyStrength = Math.max(0, Math.min(lowFrequencyStrength, 255));
+        highFrequencyStrength = Math.max(0, Math.min(highFrequencyStrength, 255));
+
+        if(milliseconds <= 0L || (lowFrequencyStrength == 0 && highFrequencyStrength == 0)) {
+            Stop(ctx, controllerId);
+            return;
+        }
+
+        // Effects don't reference a motor so they're built once and shared by every targeted controller
+        VibrationEffect lowFrequencyEffect = lowFrequencyStrength > 0 ? VibrationEffect.createOneShot(milliseconds, lowFrequencyStrength) : null;
+        VibrationEffect highFrequencyEffect = highFrequencyStrength > 0 ? VibrationEffect.createOneShot(milliseconds, highFrequencyStrength) : null;
+        VibrationEffect singleMotorEffect = lowFrequencyEffect != null ? lowFrequencyEffect : VibrationEffect.createOneShot(milliseconds, 1);
+
+        ForEachController(ctx, controllerId, controller -> RumbleController(controller, lowFrequencyEffect, highFrequencyEffect, singleMotorEffect));
+    }
+
+    // Same as Rumble(..) but each motor follows an amplitude envelope, timings are milliseconds and amplitudes are 0 to 255 per timing
+    // Either amplitude array can be null to leave that motor off, the arrays must be the same length as the timings
+    @SuppressLint("MissingPermission")
+    public static void RumbleWaveform(Context ctx, int controllerId, long[] timings, int[] lowFrequencyAmplitudes, int[] highFrequencyAmplitudes) {
+        if(Build.VERSION.SDK_INT < Build.VERSION_CODES.S) return;
+
+        if(timings == null || timings.length == 0 || (lowFrequencyAmplitudes == null && highFrequencyAmplitudes == null)
+                || (lowFrequencyAmplitudes != null && lowFrequencyAmplitudes.length != timings.length)
+                || (highFrequencyAmplitudes != null && highFrequencyAmplitudes.length != timings.length)) {
+            Log.e("PicklePKG", "ControllerHaptics.RumbleWaveform(..) timings must be non-empty and the amplitudes must match its length!");
+            return;
+        }
+
+        VibrationEffect lowFrequencyEffect, highFrequencyEffect;
+
+        try {
+            lowFrequencyEffect = lowFrequencyAmplitudes != null ? VibrationEffect.createWaveform(timings, lowFrequencyAmplitudes, -1) : null;
+            highFrequencyEffect = highFrequencyAmplitudes != null ? VibrationEffect.createWaveform(timings, highFrequencyAmplitudes, -1) : null;
+        } catch (IllegalArgumentException e) {
+            Log.e("PicklePKG", "ControllerHaptics.RumbleWaveform(..) invalid waveform - " + e);
+            return;
+        }
+
+        VibrationEffect singleMotorEffect = lowFrequencyEffect != null ? lowFrequencyEffect : highFrequencyEffect;
+
+        ForEachController(ctx, controllerId, controller -> RumbleController(controller, lowFrequencyEffect, highFrequencyEffect, singleMotorEffect));
+    }
+
+    // Stops both motors of the controller (or every controller) with a single call
+    public static void Stop(Context ctx, int controllerId) {
+        if(Build.VERSION.SDK_INT < Build.VERSION_CODES.S) return;
+
+        ForEachController(ctx, controllerId, controller -> controller.vibratorManager.cancel());
+    }
+
+    private interface ControllerAction {
+        void Run(Controller controller);
+    }
+
+    private static void ForEachController(Context ctx, int controllerId, ControllerAction action) {
+        Init(ctx);
+
+        SparseArray<Controller> currentControllers = controllers;
+
+        if(controllerId != ALL_CONTROLLERS) {
+            Controller controller = currentControllers.get(controllerId);
+
+            if(controller == null) {
+                Log.e("PicklePKG", "ControllerHaptics.ForEachController(..) no controller with vibration found with id: " + controllerId);
+                return;
+            }
+
+            action.Run(controller);
+            return;
+        }
+
+        for(int i=0;i < currentControllers.size();++i)
+            action.Run(currentControllers.valueAt(i));
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.S)
+    @SuppressLint("MissingPermission")
+    private static void RumbleController(Controller controller, VibrationEffect lowFrequencyEffect, VibrationEffect highFrequencyEffect, VibrationEffect singleMotorEffect) {
+        if(controller.highFrequencyVibratorId < 0) {
+            controller.vibratorManager.vibrate(CombinedVibration.createParallel(singleMotorEffect));
+            return;
+        }
+
+        CombinedVibration.ParallelCombination combination = CombinedVibration.startParallel();
+
+        if(lowFrequencyEffect != null)
+            combination.addVibrator(controller.lowFrequencyVibratorId, lowFrequencyEffect);
+
+        if(highFrequencyEffect != null)
+            combination.addVibrator(controller.highFrequencyVibratorId, highFrequencyEffect);
+
+        controller.vibratorManager.vibrate(combination.combine());
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.S)
+    @SuppressLint("MissingPermission")
+    private static void VibrateMotor(Controller controller, boolean lowFrequency, long milliseconds, int strength) {
+        Vibrator vibrator = lowFrequency ? controller.lowFrequencyVibrator : controller.highFrequencyVibrator;
+
+        if(vibrator == null) {
+            vibrator = controller.lowFrequencyVibrator;
+            strength = Math.min(strength, 1);
+        }
+
+        if (strength <= 0 || milliseconds <= 0L) {
+            vibrator.cancel();
+        } else {
+            vibrator.vibrate(VibrationEffect.createOneShot(milliseconds, strength));
+        }
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.S)
+    private static synchronized void Rescan() {
+        SparseArray<Controller> scannedControllers = new SparseArray<>();
+        int[] deviceIds = InputDevice.getDeviceIds();
+
+        for(int deviceId : deviceIds) {
+            Controller controller = ResolveController(deviceId);
+
+            if(controller != null)
+                scannedControllers.put(deviceId, controller);
+        }
+
+        controllers = scannedControllers;
+        scannedDeviceIds = deviceIds;
+        isScanned = true;
+    }
+
+    // Returns null if the device is gone or has no vibration motors
+    @RequiresApi(api = Build.VERSION_CODES.S)
+    private static Controller ResolveController(int deviceId) {
+        InputDevice inputDevice = InputDevice.getDevice(deviceId);
+
+        if(inputDevice == null) return null;
+
+        VibratorManager vibratorManager = inputDevice.getVibratorManager();
+
+        if(vibratorManager == null) return null;
+
+        // Game controllers typically have 2 vibration motors one for low frequency and one for high frequency
+        int[] vibratorIds = vibratorManager.getVibratorIds();
+
+        if(vibratorIds.length == 0) return null;
+
+        Vibrator lowFrequencyVibrator = vibratorManager.getVibrator(vibratorIds[0]);
+        Vibrator highFrequencyVibrator = vibratorIds.length > 1 ? vibratorManager.getVibrator(vibratorIds[1]) : null;
+
+        if(lowFrequencyVibrator == null) {
+            Log.e("PicklePKG", "ControllerHaptics.ResolveController(..) null vibrator on deviceId: " + deviceId);
+            return null;
+        }
+
+        return new Controller(vibratorManager, lowFrequencyVibrator, highFrequencyVibrator, vibratorIds[0], highFrequencyVibrator != null ? vibratorIds[1] : -1);
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.S)
+    private static synchronized void UpdateController(int deviceId) {
+        Controller controller = ResolveController(deviceId);
+        SparseArray<Controller> updatedControllers = controllers.clone();
+
+        if(controller != null) {
+            updatedControllers.put(deviceId, controller);
+        } else {
+            updatedControllers.remove(deviceId);
+        }
+
+        controllers = updatedControllers;
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.S)
+    private static synchronized void RemoveController(int deviceId) {
+        if(controllers.get(deviceId) == null) return;
+
+        SparseArray<Controller> updatedControllers = controllers.clone();
+        updatedControllers.remove(deviceId);
+        controllers = updatedControllers;
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.S)
+    private static synchronized void RegisterDeviceListener(Context ctx) {
+        if(isListening) return;
+
+        Context appCtx = ctx.getApplicationContext() != null ? ctx.getApplicationContext() : ctx;
+        InputManager inputManager = (InputManager) appCtx.getSystemService(Context.INPUT_SERVICE);
+
+        if(inputManager == null) {
+            Log.e("PicklePKG", "ControllerHaptics.RegisterDeviceListener(..) null inputManager!");
+            return;
+        }
+
+        inputManager.registerInputDeviceListener(new InputManager.InputDeviceListener() {
+            @Override public void onInputDeviceAdded(int deviceId) { UpdateController(deviceId); }
+            @Override public void onInputDeviceRemoved(int deviceId) { RemoveController(deviceId); }
+            @Override public void onInputDeviceChanged(int deviceId) { UpdateController(deviceId); }
+        }, PluginExecutors.MainHandler());
+
+        isListening = true;
+
+        // Anything connected between the first scan and the listener registering would otherwise be missed
+        Rescan();
+    }
+}
@@ -0,0 +1,186 @@
+package com.pickle.picklecore;
+
+import android.app.Activity;
+import android.content.ComponentCallbacks;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.hardware.display.DisplayManager;
+import android.os.Build;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+import android.view.Window;
+import android.view.WindowInsets;
+
+import java.lang.ref.WeakReference;
+import java.util.Objects;
+
+// Holds every display value SystemInfo exposes, computed once and reused until something actually changes
+// The snapshot is rebuilt lazily on the next query after a configuration, display (rotation), insets or multi-window change
+// so repeated calls from Unity layout code are just field reads
+public class DisplayGeometrySnapshot {
+
+    private static volatile DisplayGeometrySnapshot current;
+    private static volatile boolean isDirty = true;
+
+    // Set when the snapshot was built before the decor view was attached (so without root insets), the snapshot is left dirty
+    // and the layout observer invalidates once more when the insets show up
+    private static volatile boolean isWaitingForInsets;
+
+    // Incremented every rebuild so callers holding onto values can cheaply tell if anything changed
+    private static int nextGeneration = 1;
+
+    private static WeakReference<Activity> hookedActivity = new WeakReference<>(null);
+    private static boolean areGlobalCallbacksRegistered;
+
+    // Only touched on the main thread, the observer is added alongside anything Unity or the app registered rather than replacing it
+    private static WeakReference<View> observedDecorView = new WeakReference<>(null);
+    private static final ViewTreeObserver.OnGlobalLayoutListener layoutObserver = DisplayGeometrySnapshot::OnGlobalLayout;
+
+    public final int generation;
+    public final int width, height, density;
+    public final float xdpi, ydpi;
+    public final boolean hasNotchCutout;
+
+    private final int[] safeZone, navbarSafeZone;
+    private final WindowInsets rootInsets; // null before API 23 or while the decor view isn't attached
+    private final Configuration configuration; // Copy of the activity's configuration the snapshot was built with
+
+    private DisplayGeometrySnapshot(Activity activity, Context ctx, int inGeneration) {
+        generation = inGeneration;
+        rootInsets = GetRootInsets(activity);
+        configuration = new Configuration(activity.getResources().getConfiguration());
+        width = SystemInfo.ComputeWidth(activity);
+        height = SystemInfo.ComputeHeight(activity);
+        density = SystemInfo.ComputeDensity(ctx);
+        xdpi = SystemInfo.ComputeXDPI(ctx);
+        ydpi = SystemInfo.ComputeYDPI(ctx);
+        hasNotchCutout = SystemInfo.ComputeHasNotchCutout(activity, ctx);
+        safeZone = SystemInfo.ComputeSafeZone(activity, ctx, false);
+        navbarSafeZone = SystemInfo.ComputeSafeZone(activity, ctx, true);
+    }
+
+    // Note: The returned array is shared by every caller of this snapshot, don't modify it
+    public int[] GetSafeZone(boolean navbarSafeZone) {
+        return navbarSafeZone ? this.navbarSafeZone : safeZone;
+    }
+
+    // Returns the current snapshot, rebuilding it first if it was invalidated or the activity changed
+    public static DisplayGeometrySnapshot Get(Activity activity, Context ctx) {
+        DisplayGeometrySnapshot snapshot = current;
+
+        if(snapshot != null && !isDirty && hookedActivity.get() == activity)
+            return snapshot;
+
+        return Rebuild(activity, ctx);
+    }
+
+    // Returns the current snapshot only if it's still valid, used by the context-only getters which can't rebuild without an activity
+    public static DisplayGeometrySnapshot GetIfValid() {
+        return isDirty ? null : current;
+    }
+
+    public static void Invalidate() {
+        isDirty = true;
+
+        // Let any safe area listener know it should check for changes rather than waiting for a poll
+        SafeAreaListener.OnGeometryInvalidated();
+    }
+
+    private static synchronized DisplayGeometrySnapshot Rebuild(Activity activity, Context ctx) {
+        // Another thread may have rebuilt the snapshot while we were waiting for the lock
+        if(current != null && !isDirty && hookedActivity.get() == activity)
+            return current;
+
+        if(hookedActivity.get() != activity) {
+            hookedActivity = new WeakReference<>(activity);
+            InstallInvalidationHooks(activity, ctx);
+        }
+
+        // Clear the flag before building so an invalidation which arrives mid-build still marks the new snapshot as stale
+        isDirty = false;
+        current = new DisplayGeometrySnapshot(activity, ctx, nextGeneration++);
+
+        // Cutouts and rounded corners come from the root insets on API 28+, without them the values are only a best guess
+        // so they're still returned but rebuilt on the next query
+        isWaitingForInsets = Build.VERSION.SDK_INT >= Build.VERSION_CODES.P && current.rootInsets == null;
+
+        if(isWaitingForInsets)
+            isDirty = true;
+
+        return current;
+    }
+
+    private static void InstallInvalidationHooks(final Activity activity, Context ctx) {
+        final Context appCtx = ctx.getApplicationContext() != null ? ctx.getApplicationContext() : ctx;
+
+        PluginExecutors.PostToMain(() -> {
+            if(!areGlobalCallbacksRegistered) {
+                // Configuration changes cover orientation, screen size, density and multi-window resizes
+                appCtx.registerComponentCallbacks(new ComponentCallbacks() {
+                    @Override public void onConfigurationChanged(Configuration newConfig) { Invalidate(); }
+                    @Override public void onLowMemory() {}
+                });
+
+                // 180 degree rotations don't cause a configuration change but are reported as a display change
+                DisplayManager displayManager = (DisplayManager) appCtx.getSystemService(Context.DISPLAY_SERVICE);
+
+                if(displayManager != null) {
+                    displayManager.registerDisplayListener(new DisplayManager.DisplayListener() {
+                        @Override public void onDisplayAdded(int displayId) {}
+                        @Override public void onDisplayRemoved(int displayId) {}
+                        @Override public void onDisplayChanged(int displayId) { Invalidate(); }
+                    }, PluginExecutors.MainHandler());
+                }
+
+                areGlobalCallbacksRegistered = true;
+            }
+
+            Window activityWindow = activity.getWindow();
+
+            if(activityWindow == null) {
+                Log.e("PicklePKG", "DisplayGeometrySnapshot.InstallInvalidationHooks(..) null activityWindow!");
+                return;
+            }
+
+            View decorView = activityWindow.getDecorView();
+            View previousDecorView = observedDecorView.get();
+
+            if(previousDecorView != decorView) {
+                if(previousDecorView != null)
+                    previousDecorView.getViewTreeObserver().removeOnGlobalLayoutListener(layoutObserver);
+
+                // Insets change for nav bar toggles, cutout mode changes and split-screen without always changing the configuration,
+                // all of which cause a layout pass so the geometry is compared after each one
+                decorView.getViewTreeObserver().addOnGlobalLayoutListener(layoutObserver);
+                observedDecorView = new WeakReference<>(decorView);
+            }
+
+            // Anything which changed between building the snapshot and the hook being installed would be missed otherwise
+            OnGlobalLayout();
+        });
+    }
+
+    // Runs on the main thread after every layout pass of the hooked activity, so only values which can be compared without
+    // allocating are checked, size changes are left to the configuration and display callbacks
+    private static void OnGlobalLayout() {
+        DisplayGeometrySnapshot snapshot = current;
+        Activity activity = hookedActivity.get();
+
+        // Already due a rebuild, no need to compare (unless the snapshot is only waiting on insets)
+        if(snapshot == null || activity == null || (isDirty && !isWaitingForInsets)) return;
+
+        if(!Objects.equals(GetRootInsets(activity), snapshot.rootInsets) || !snapshot.configuration.equals(activity.getResources().getConfiguration())) {
+            isWaitingForInsets = false;
+            Invalidate();
+        }
+    }
+
+    private static WindowInsets GetRootInsets(Activity activity) {
+        if(Build.VERSION.SDK_INT < Build.VERSION_CODES.M) return null;
+
+        Window activityWindow = activity.getWindow();
+
+        return activityWindow != null ? activityWindow.getDecorView().getRootWindowInsets() : null;
+    }
+}
@@ -0,0 +1,174 @@
+package com.pickle.picklecore;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.VibrationEffect;
+import android.os.Vibrator;
+import android.util.Log;
+import android.util.SparseArray;
+
+// Registry of prebuilt vibration effects keyed by an effect id chosen by Unity
+// Effects are built once when registered so PlayEffect(..) is a lookup plus a single vibrate call, nothing is allocated per play
+// Waveforms replace chains of back to back DoVibrate(..) calls with one effect the vibrator service plays on its own
+public class HapticEffects {
+
+    private static class HapticEffect {
+        final VibrationEffect effect; // API 26+
+        final long[] legacyPattern; // Pre API 26 fallback, off/on durations starting with an off duration
+        final int legacyRepeat;
+
+        HapticEffect(VibrationEffect inEffect, long[] inLegacyPattern, int inLegacyRepeat) {
+            effect = inEffect;
+            legacyPattern = inLegacyPattern;
+            legacyRepeat = inLegacyRepeat;
+        }
+    }
+
+    // Copied on write so the play path can read it without locking, registering is rare compared to playing
+    private static volatile SparseArray<HapticEffect> effects = new SparseArray<>();
+
+    // Amplitude is 1 to 255 (-1 or anything out of range uses the device default)
+    public static boolean RegisterOneShot(int effectId, long milliseconds, int amplitude) {
+        if(milliseconds <= 0L) {
+            Log.e("PicklePKG", "HapticEffects.RegisterOneShot(..) milliseconds must be positive!");
+            return false;
+        }
+
+        if(amplitude <= 0 || amplitude > 255) amplitude = -1;
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            return Put(effectId, new HapticEffect(VibrationEffect.createOneShot(milliseconds, amplitude), null, -1));
+        } else {
+            return Put(effectId, new HapticEffect(null, new long[]{ 0L, milliseconds }, -1));
+        }
+    }
+
+    // Timings alternate off and on durations starting with an off duration, amplitudes are 0 to 255 per timing (null uses on/off)
+    // repeatIndex is the timing index to loop back to or -1 to play once, repeating effects play until StopVibrate() is called
+    public static boolean RegisterWaveform(int effectId, long[] timings, int[] amplitudes, int repeatIndex) {
+        if(timings == null || timings.length == 0) {
+            Log.e("PicklePKG", "HapticEffects.RegisterWaveform(..) timings were empty!");
+            return false;
+        }
+
+        if(amplitudes != null && amplitudes.length != timings.length) {
+            Log.e("PicklePKG", "HapticEffects.RegisterWaveform(..) amplitudes and timings must be the same length!");
+            return false;
+        }
+
+        if(repeatIndex < -1 || repeatIndex >= timings.length) repeatIndex = -1;
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            VibrationEffect effect;
+
+            try {
+                effect = amplitudes != null ? VibrationEffect.createWaveform(timings, amplitudes, repeatIndex) : VibrationEffect.createWaveform(timings, repeatIndex);
+            } catch (IllegalArgumentException e) {
+                Log.e("PicklePKG", "HapticEffects.RegisterWaveform(..) invalid waveform - " + e);
+                return false;
+            }
+
+            return Put(effectId, new HapticEffect(effect, null, -1));
+        } else {
+            // Legacy patterns are already off/on pairs, amplitudes aren't supported so on durations are simply at full strength
+            return Put(effectId, new HapticEffect(null, timings.clone(), repeatIndex));
+        }
+    }
+
+    // One of the VibrationEffect.EFFECT_* ids (API 29+), older devices use the fallback duration as a one-shot instead
+    public static boolean RegisterPredefined(Context ctx, int effectId, int predefinedEffectId, long fallbackMilliseconds) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Vibrator deviceVibrator = Build.VERSION.SDK_INT >= Build.VERSION_CODES.R ? GetVibrator(ctx) : null;
+
+            // Devices which report they don't implement the effect (API 30+) would otherwise play a generic fallback of their own choosing
+            if(deviceVibrator == null || deviceVibrator.areAllEffectsSupported(predefinedEffectId) != Vibrator.VIBRATION_EFFECT_SUPPORT_NO)
+                return Put(effectId, new HapticEffect(VibrationEffect.createPredefined(predefinedEffectId), null, -1));
+        }
+
+        return fallbackMilliseconds > 0L && RegisterOneShot(effectId, fallbackMilliseconds, -1);
+    }
+
+    // Composition of VibrationEffect.Composition.PRIMITIVE_* ids (API 30+) each with a 0 to 1 scale and a delay in milliseconds before it
+    // Returns false without registering if the device doesn't support every primitive so the caller can register a fallback instead
+    public static boolean RegisterComposition(Context ctx, int effectId, int[] primitiveIds, float[] scales, int[] delays) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.R) return false;
+
+        if(primitiveIds == null || primitiveIds.length == 0 || scales == null || delays == null || scales.length != primitiveIds.length || delays.length != primitiveIds.length) {
+            Log.e("PicklePKG", "HapticEffects.RegisterComposition(..) primitiveIds, scales and delays must be the same non-zero length!");
+            return false;
+        }
+
+        Vibrator deviceVibrator = GetVibrator(ctx);
+
+        if(deviceVibrator == null || !deviceVibrator.areAllPrimitivesSupported(primitiveIds)) return false;
+
+        VibrationEffect.Composition composition = VibrationEffect.startComposition();
+
+        try {
+            for(int i=0;i < primitiveIds.length;++i)
+                composition.addPrimitive(primitiveIds[i], Math.max(0f, Math.min(scales[i], 1f)), Math.max(delays[i], 0));
+        } catch (IllegalArgumentException e) {
+            Log.e("PicklePKG", "HapticEffects.RegisterComposition(..) invalid primitive - " + e);
+            return false;
+        }
+
+        return Put(effectId, new HapticEffect(composition.compose(), null, -1));
+    }
+
+    public static synchronized void Unregister(int effectId) {
+        SparseArray<HapticEffect> updatedEffects = effects.clone();
+        updatedEffects.remove(effectId);
+        effects = updatedEffects;
+    }
+
+    public static boolean IsRegistered(int effectId) {
+        return effects.get(effectId) != null;
+    }
+
+    // Plays a registered effect, this is the hot path so it must not allocate
+    @SuppressWarnings({"MissingPermission"})
+    public static void PlayEffect(Context ctx, int effectId) {
+        HapticEffect hapticEffect = effects.get(effectId);
+
+        if(hapticEffect == null) {
+            Log.e("PicklePKG", "HapticEffects.PlayEffect(..) effect " + effectId + " isn't registered!");
+            return;
+        }
+
+        Vibrator deviceVibrator = GetVibrator(ctx);
+
+        if(deviceVibrator == null) return;
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
+            deviceVibrator.vibrate(hapticEffect.effect, Vibration.GetMediaAttributes());
+        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            deviceVibrator.vibrate(hapticEffect.effect);
+        } else {
+            deviceVibrator.vibrate(hapticEffect.legacyPattern, hapticEffect.legacyRepeat);
+        }
+    }
+
+    private static synchronized boolean Put(int effectId, HapticEffect hapticEffect) {
+        SparseArray<HapticEffect> updatedEffects = effects.clone();
+        updatedEffects.put(effectId, hapticEffect);
+        effects = updatedEffects;
+
+        return true;
+    }
+
+    // Returns null if the device can't vibrate or the app doesn't have the VIBRATE permission
+    private static Vibrator GetVibrator(Context ctx) {
+        if (!Vibration.isVibratorInitialised)
+            Vibration.InitVibrator(ctx);
+
+        if (Vibration.isVibratorDisabled) return null;
+
+        Vibrator deviceVibrator = Vibration.vibrator;
+
+        // Same as DoVibrate(..), if the vibrator is suddenly null it's re-initialised next time
+        if (deviceVibrator == null)
+            Vibration.isVibratorInitialised = false;
+
+        return deviceVibrator;
+    }
+}
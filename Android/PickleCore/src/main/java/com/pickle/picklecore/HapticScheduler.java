@@ -0,0 +1,176 @@
+package com.pickle.picklecore;
+
+import android.app.Activity;
+import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.os.SystemClock;
+
+// Coalesces bursts of haptic requests (e.g several collisions in one frame) into a single vibration and limits how often the
+// vibrator service is called, every call is a binder transaction which cancels whatever was already playing
+// Requests arriving within the coalesce window are merged into the strongest one, which is played on a dedicated thread so
+// callers never block on binder, if it arrives sooner than the max rate allows it's dropped
+// This has its own thread rather than using PluginExecutors as haptics are latency sensitive and shouldn't queue behind IO work
+public class HapticScheduler {
+
+    // Slot indexes of the array returned by GetStats()
+    public static final int STAT_REQUESTED = 0;
+    public static final int STAT_PLAYED = 1;
+    public static final int STAT_MERGED = 2;
+    public static final int STAT_DROPPED = 3;
+    public static final int STAT_COUNT = 4;
+
+    // Vibrations and haptic feedback are coalesced separately but share the rate limit
+    static class PendingHaptic {
+        boolean isPending;
+        long milliseconds;
+        int strength;
+        boolean ignoreDeviceHapticSetting;
+        Context ctx;
+        Activity activity;
+
+        final Runnable flushRunnable;
+
+        PendingHaptic(boolean isHapticFeedback) {
+            flushRunnable = () -> Flush(this, isHapticFeedback);
+        }
+    }
+
+    private static final Object schedulerLock = new Object();
+    private static final PendingHaptic pendingVibration = new PendingHaptic(false);
+    private static final PendingHaptic pendingFeedback = new PendingHaptic(true);
+
+    // Defaults to about a frame of coalescing and at most 20 vibrations a second
+    private static long coalesceWindowMilliseconds = 16L;
+    private static long minIntervalMilliseconds = 50L;
+    private static long lastPlayedAt = Long.MIN_VALUE / 2;
+
+    private static long requestedCount, playedCount, mergedCount, droppedCount;
+
+    private static Handler schedulerHandler;
+
+    // A window of 0 plays each request as soon as the scheduler thread gets to it, maxPerSecond of 0 or less disables the rate limit
+    public static void Configure(long newCoalesceWindowMilliseconds, int maxPerSecond) {
+        synchronized (schedulerLock) {
+            coalesceWindowMilliseconds = Math.max(newCoalesceWindowMilliseconds, 0L);
+            minIntervalMilliseconds = maxPerSecond > 0 ? 1000L / maxPerSecond : 0L;
+        }
+    }
+
+    // Same as Vibration.DoVibrate(..) but coalesced and rate limited, the longest of the strongest requests is kept
+    public static void Vibrate(Context ctx, long milliseconds, int strength) {
+        if(ctx == null || milliseconds <= 0L) return;
+        if(strength <= 0 || strength > 255) strength = -1;
+
+        Request(pendingVibration, null, ctx, milliseconds, strength, false);
+    }
+
+    // Same as Vibration.DoHapticFeedback(..) but coalesced and rate limited, the strongest request is kept
+    public static void HapticFeedback(Activity activity, Context ctx, int strength, boolean ignoreDeviceHapticSetting) {
+        if(ctx == null || activity == null) return;
+
+        Request(pendingFeedback, activity, ctx, 0L, strength, ignoreDeviceHapticSetting);
+    }
+
+    // See the STAT_* constants for the layout
+    public static long[] GetStats() {
+        long[] stats = new long[STAT_COUNT];
+
+        synchronized (schedulerLock) {
+            stats[STAT_REQUESTED] = requestedCount;
+            stats[STAT_PLAYED] = playedCount;
+            stats[STAT_MERGED] = mergedCount;
+            stats[STAT_DROPPED] = droppedCount;
+        }
+
+        return stats;
+    }
+
+    private static void Request(PendingHaptic pending, Activity activity, Context ctx, long milliseconds, int strength, boolean ignoreDeviceHapticSetting) {
+        synchronized (schedulerLock) {
+            ++requestedCount;
+
+            if(pending.isPending) {
+                ++mergedCount;
+
+                Merge(pending, milliseconds, strength, ignoreDeviceHapticSetting);
+                return;
+            }
+
+            pending.isPending = true;
+            pending.milliseconds = milliseconds;
+            pending.strength = strength;
+            pending.ignoreDeviceHapticSetting = ignoreDeviceHapticSetting;
+            pending.ctx = ctx;
+            pending.activity = activity;
+
+            GetHandler().postDelayed(pending.flushRunnable, coalesceWindowMilliseconds);
+        }
+    }
+
+    // Must hold schedulerLock, keeps the strongest request (the longest one if they're as strong as each other)
+    static void Merge(PendingHaptic pending, long milliseconds, int strength, boolean ignoreDeviceHapticSetting) {
+        // Default strength (-1) counts as full strength as the device default is usually strong
+        int requestedStrength = strength < 0 ? 256 : strength;
+        int pendingStrength = pending.strength < 0 ? 256 : pending.strength;
+
+        if(requestedStrength > pendingStrength || (requestedStrength == pendingStrength && milliseconds > pending.milliseconds)) {
+            pending.milliseconds = milliseconds;
+            pending.strength = strength;
+        }
+
+        pending.ignoreDeviceHapticSetting |= ignoreDeviceHapticSetting;
+    }
+
+    // Runs on the scheduler thread once the coalesce window of the first request closes
+    private static void Flush(PendingHaptic pending, boolean isHapticFeedback) {
+        Context ctx;
+        Activity activity;
+        long milliseconds;
+        int strength;
+        boolean ignoreDeviceHapticSetting;
+
+        synchronized (schedulerLock) {
+            if(!pending.isPending) return;
+
+            ctx = pending.ctx;
+            activity = pending.activity;
+            milliseconds = pending.milliseconds;
+            strength = pending.strength;
+            ignoreDeviceHapticSetting = pending.ignoreDeviceHapticSetting;
+
+            pending.isPending = false;
+            pending.ctx = null;
+            pending.activity = null;
+
+            long now = SystemClock.uptimeMillis();
+
+            if(now - lastPlayedAt < minIntervalMilliseconds) {
+                ++droppedCount;
+                return;
+            }
+
+            lastPlayedAt = now;
+            ++playedCount;
+        }
+
+        if(isHapticFeedback) {
+            Vibration.DoHapticFeedback(activity, ctx, strength, ignoreDeviceHapticSetting);
+        } else {
+            Vibration.DoVibrate(ctx, milliseconds, strength);
+        }
+    }
+
+    // Must hold schedulerLock, the thread is only started once haptics are actually scheduled
+    private static Handler GetHandler() {
+        if(schedulerHandler == null) {
+            HandlerThread schedulerThread = new HandlerThread("PickleHaptics", Process.THREAD_PRIORITY_DISPLAY);
+            schedulerThread.start();
+
+            schedulerHandler = new Handler(schedulerThread.getLooper());
+        }
+
+        return schedulerHandler;
+    }
+}
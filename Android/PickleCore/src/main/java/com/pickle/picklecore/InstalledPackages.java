@@ -0,0 +1,277 @@
+package com.pickle.picklecore;
+
+import android.annotation.SuppressLint;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Cached snapshot of the installed package names which can be queried without rebuilding the whole list every call
+// The snapshot is only rebuilt after a package added/removed broadcast bumps the generation counter
+// Names are kept sorted by their lowercase form so prefix and exact matches are binary searches rather than full scans
+// Note: Android 11+ only returns packages visible to the app (see <queries> in the manifest)
+public class InstalledPackages {
+
+    public static final int MATCH_ALL = 0; // Every installed package, patterns are ignored
+    public static final int MATCH_PREFIX = 1; // Package names starting with any of the patterns
+    public static final int MATCH_SUBSTRING = 2; // Package names containing any of the patterns
+    public static final int MATCH_EXACT = 3; // Package names equal to any of the patterns
+
+    public interface PackageQueryCallback {
+        // Called on a background thread, packageNames is the requested page and totalMatches counts every match
+        void OnPackagesQueried(String[] packageNames, int totalMatches);
+    }
+
+    static class Snapshot {
+        final int generation;
+        final String[] packageNames;
+        final String[] lowerPackageNames;
+        final Set<String> packageNameSet;
+
+        Snapshot(int inGeneration, String[] inPackageNames, String[] inLowerPackageNames) {
+            generation = inGeneration;
+            packageNames = inPackageNames;
+            lowerPackageNames = inLowerPackageNames;
+            packageNameSet = new HashSet<>(Arrays.asList(inPackageNames));
+        }
+    }
+
+    private static final AtomicInteger generation = new AtomicInteger();
+    private static volatile Snapshot snapshot;
+    private static volatile boolean isReceiverRegistered;
+
+    // Returns a page of the sorted matching package names, a limit of 0 or less returns every match from the offset
+    public static String[] Query(Context ctx, int matchMode, String[] patterns, int offset, int limit) {
+        Snapshot currentSnapshot = GetSnapshot(ctx);
+
+        if(currentSnapshot == null) return new String[0];
+
+        return GetPage(currentSnapshot, Match(currentSnapshot, matchMode, patterns), offset, limit);
+    }
+
+    // One entry per candidate package name, true if that exact package is installed
+    public static boolean[] AreInstalled(Context ctx, String[] packageNames) {
+        if(packageNames == null) return new boolean[0];
+
+        boolean[] isInstalled = new boolean[packageNames.length];
+        Snapshot currentSnapshot = GetSnapshot(ctx);
+
+        if(currentSnapshot == null) return isInstalled;
+
+        for(int i=0;i < packageNames.length;++i)
+            isInstalled[i] = packageNames[i] != null && currentSnapshot.packageNameSet.contains(packageNames[i]);
+
+        return isInstalled;
+    }
+
+    // Same as Query(..) but the snapshot is built and searched on a background thread
+    public static void QueryAsync(Context ctx, int matchMode, String[] patterns, int offset, int limit, PackageQueryCallback callback) {
+        if(callback == null) {
+            Log.e("PicklePKG", "InstalledPackages.QueryAsync(..) callback was null!");
+            return;
+        }
+
+        PluginExecutors.Execute(() -> {
+            String[] page = new String[0];
+            int totalMatches = 0;
+
+            try {
+                Snapshot currentSnapshot = GetSnapshot(ctx);
+
+                if(currentSnapshot != null) {
+                    BitSet matches = Match(currentSnapshot, matchMode, patterns);
+
+                    page = GetPage(currentSnapshot, matches, offset, limit);
+                    totalMatches = matches.cardinality();
+                }
+            } catch (Exception e) {
+                Log.e("PicklePKG", "InstalledPackages.QueryAsync(..) query failed - " + e);
+            }
+
+            try {
+                callback.OnPackagesQueried(page, totalMatches);
+            } catch (Exception e) {
+                Log.e("PicklePKG", "InstalledPackages.QueryAsync(..) callback threw - " + e);
+            }
+        });
+    }
+
+    // Incremented whenever a package is added or removed, compare against a previous value to tell if results may be stale
+    public static int GetGeneration() {
+        return generation.get();
+    }
+
+    private static Snapshot GetSnapshot(Context ctx) {
+        if(ctx == null) return null;
+
+        RegisterPackageReceiver(ctx);
+
+        Snapshot currentSnapshot = snapshot;
+
+        if(currentSnapshot != null && currentSnapshot.generation == generation.get())
+            return currentSnapshot;
+
+        synchronized (InstalledPackages.class) {
+            // Read the generation before querying so a change while building forces another rebuild next time
+            int buildGeneration = generation.get();
+
+            if(snapshot != null && snapshot.generation == buildGeneration)
+                return snapshot;
+
+            String[] packageNames = GetInstalledPackageNames(ctx);
+
+            if(packageNames == null) return null;
+
+            snapshot = CreateSnapshot(buildGeneration, packageNames);
+            return snapshot;
+        }
+    }
+
+    // Sorts packageNames in place
+    static Snapshot CreateSnapshot(int buildGeneration, String[] packageNames) {
+        // Package names are ASCII so case insensitive order matches the natural order of the lowercase names
+        Arrays.sort(packageNames, String.CASE_INSENSITIVE_ORDER);
+
+        String[] lowerPackageNames = new String[packageNames.length];
+
+        for(int i=0;i < packageNames.length;++i)
+            lowerPackageNames[i] = packageNames[i].toLowerCase(Locale.ROOT);
+
+        return new Snapshot(buildGeneration, packageNames, lowerPackageNames);
+    }
+
+    @SuppressLint("QueryPermissionsNeeded")
+    private static String[] GetInstalledPackageNames(Context ctx) {
+        PackageManager ctxPackageManager = ctx.getPackageManager();
+
+        if (ctxPackageManager == null) {
+            Log.e("PicklePKG", "InstalledPackages.GetInstalledPackageNames(..) failed to get getPackageManager()");
+            return null;
+        }
+
+        List<ApplicationInfo> packageList;
+
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU){
+            packageList = ctxPackageManager.getInstalledApplications(PackageManager.ApplicationInfoFlags.of(0L));
+        } else {
+            packageList = ctxPackageManager.getInstalledApplications(0);
+        }
+
+        String[] packageNames = new String[packageList.size()];
+        int packageCount = 0;
+
+        for (ApplicationInfo listItem : packageList) {
+            if (listItem.packageName != null)
+                packageNames[packageCount++] = listItem.packageName;
+        }
+
+        return packageCount == packageNames.length ? packageNames : Arrays.copyOf(packageNames, packageCount);
+    }
+
+    // Indexes into the snapshot of every matching package, a bit set keeps them sorted and free of duplicates across patterns
+    static BitSet Match(Snapshot currentSnapshot, int matchMode, String[] patterns) {
+        String[] lowerPackageNames = currentSnapshot.lowerPackageNames;
+        BitSet matches = new BitSet(lowerPackageNames.length);
+
+        if(matchMode == MATCH_ALL) {
+            matches.set(0, lowerPackageNames.length);
+            return matches;
+        }
+
+        if(patterns == null) return matches;
+
+        for(String pattern : patterns) {
+            if(pattern == null) continue;
+
+            String lowerPattern = pattern.toLowerCase(Locale.ROOT);
+
+            switch(matchMode) {
+                case MATCH_PREFIX:
+                    int index = Arrays.binarySearch(lowerPackageNames, lowerPattern);
+                    if(index < 0) index = -(index + 1);
+
+                    while(index < lowerPackageNames.length && lowerPackageNames[index].startsWith(lowerPattern))
+                        matches.set(index++);
+                    break;
+
+                case MATCH_SUBSTRING:
+                    for(int i=0;i < lowerPackageNames.length;++i) {
+                        if(lowerPackageNames[i].contains(lowerPattern))
+                            matches.set(i);
+                    }
+                    break;
+
+                case MATCH_EXACT:
+                    int exactIndex = Arrays.binarySearch(lowerPackageNames, lowerPattern);
+
+                    if(exactIndex >= 0)
+                        matches.set(exactIndex);
+                    break;
+
+                default:
+                    Log.e("PicklePKG", "InstalledPackages.Match(..) unknown match mode " + matchMode);
+                    return matches;
+            }
+        }
+
+        return matches;
+    }
+
+    static String[] GetPage(Snapshot currentSnapshot, BitSet matches, int offset, int limit) {
+        int totalMatches = matches.cardinality();
+        int start = Math.max(offset, 0);
+        int pageSize = Math.max(Math.min(limit > 0 ? limit : totalMatches, totalMatches - start), 0);
+
+        String[] page = new String[pageSize];
+        int matchIndex = matches.nextSetBit(0);
+
+        for(int i=0;i < start && matchIndex >= 0;++i)
+            matchIndex = matches.nextSetBit(matchIndex + 1);
+
+        for(int i=0;i < pageSize;++i) {
+            page[i] = currentSnapshot.packageNames[matchIndex];
+            matchIndex = matches.nextSetBit(matchIndex + 1);
+        }
+
+        return page;
+    }
+
+    private static void RegisterPackageReceiver(Context ctx) {
+        if(isReceiverRegistered) return;
+
+        synchronized (InstalledPackages.class) {
+            if(isReceiverRegistered) return;
+
+            Context appCtx = ctx.getApplicationContext() != null ? ctx.getApplicationContext() : ctx;
+
+            IntentFilter packageFilter = new IntentFilter();
+            packageFilter.addAction(Intent.ACTION_PACKAGE_ADDED);
+            packageFilter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+            packageFilter.addDataScheme("package");
+
+            // Package broadcasts come from the system so the receiver doesn't need exporting
+            ContextCompat.registerReceiver(appCtx, new BroadcastReceiver() {
+                @Override
+                public void onReceive(Context context, Intent intent) {
+                    generation.incrementAndGet();
+                }
+            }, packageFilter, ContextCompat.RECEIVER_NOT_EXPORTED);
+
+            isReceiverRegistered = true;
+        }
+    }
+}
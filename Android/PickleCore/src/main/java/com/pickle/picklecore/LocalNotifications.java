@@ -13,17 +13,20 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.content.res.Resources;
-import android.graphics.BitmapFactory;
 import android.os.Build;
 import android.os.Bundle;
 import android.util.Log;
 
+import androidx.annotation.RequiresApi;
 import androidx.core.app.NotificationCompat;
 import androidx.core.app.NotificationManagerCompat;
 import androidx.core.content.ContextCompat;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 // Default system notification groups
 import static android.app.Notification.CATEGORY_CALL;
@@ -57,9 +60,16 @@ import static androidx.core.app.NotificationCompat.VISIBILITY_PUBLIC;
 
 public class LocalNotifications extends BroadcastReceiver {
 
+    // Alarm used for every scheduled notification (see NotificationSchedule), only the nearest one has an alarm registered
+    private static final String ACTION_SCHEDULED_ALARM = "com.pickle.picklecore.SCHEDULED_NOTIFICATION_ALARM";
+    private static final int SCHEDULED_ALARM_REQUEST_CODE = Integer.MIN_VALUE; // Keep clear of the notification ids used as request codes
+
+    // Scheduled notifications due within this window of the alarm firing are posted together rather than re-arming for each
+    private static final long SCHEDULED_DUE_TOLERANCE_MS = 1000L;
+
     public static class ChannelGroupData {
         public String name;
-        public Map<String, ChannelData> channelData = new HashMap<String, ChannelData>();
+        public Map<String, ChannelData> channelData = new ConcurrentHashMap<String, ChannelData>();
 
         public ChannelGroupData(String inName) {
             name = inName;
@@ -89,7 +99,8 @@ public class LocalNotifications extends BroadcastReceiver {
     }
 
     // Setup the hash map with the system default notification group already pre-added
-    public static Map<String, ChannelGroupData> channelGroups = new HashMap<String, ChannelGroupData>() {{
+    // Concurrent so notifications sent from Unity worker threads can read while channels are created, writes go through registryLock
+    public static Map<String, ChannelGroupData> channelGroups = new ConcurrentHashMap<String, ChannelGroupData>() {{
         put(CATEGORY_EVENT, new ChannelGroupData(CATEGORY_EVENT));
         put(CATEGORY_ALARM, new ChannelGroupData(CATEGORY_ALARM));
         put(CATEGORY_CALL, new ChannelGroupData(CATEGORY_CALL));
@@ -108,15 +119,21 @@ public class LocalNotifications extends BroadcastReceiver {
         put(CATEGORY_TRANSPORT, new ChannelGroupData(CATEGORY_TRANSPORT));
     }};
 
+    // Direct channel id -> channel data index kept in step with channelGroups so sends don't need to search every group
+    // Channel data is replaced rather than updated in place so readers never see a half updated channel
+    private static final Map<String, ChannelData> channelsById = new ConcurrentHashMap<String, ChannelData>();
+    private static final Object registryLock = new Object();
+
     public static void CreateNotificationGroup(Context ctx, String id, String name) {
         if(ctx == null) return;
 
-        if (channelGroups.containsKey(id)) {
-            channelGroups.get(id).name = name;
-        } else {
-            channelGroups.put(id, new ChannelGroupData(name));
+        if (id == null) {
+            Log.e("PicklePKG", "Failed to create notification group! Group id was null!");
+            return;
         }
 
+        PutChannelGroup(id, name);
+
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
             // Notification channels & groups are only supported in API 26+
             NotificationChannelGroup channelGroup = new NotificationChannelGroup(id, name);
@@ -157,36 +174,136 @@ public class LocalNotifications extends BroadcastReceiver {
     public static void CreateNotificationChannel(Context ctx, String id, String groupId, String name, String description, boolean showOnStatusBar, boolean playSound, boolean showHeadsUp) {
         if(ctx == null) return;
 
-        if (channelGroups.containsKey(groupId)) {
-            ChannelGroupData channelGroup = channelGroups.get(groupId);
+        if (id == null || groupId == null) {
+            Log.e("PicklePKG", "Failed to create notification channel! Channel id and group id must not be null!");
+            return;
+        }
+
+        // Add information about the channel to the registry so we can treat all android versions as if they have channels
+        ChannelData channelData = PutChannel(id, groupId, name, description, showOnStatusBar, playSound, showHeadsUp);
+
+        if (channelData == null) {
+            Log.e("PicklePKG", "Failed to create notification channel! Notification group with id " + groupId + " does not exist!");
+            return;
+        }
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            // Notification channels & groups are only supported in API 26+
+            NotificationManager notificationManager = ctx.getSystemService(NotificationManager.class);
+            notificationManager.createNotificationChannel(BuildNotificationChannel(id, channelData));
+        }
+    }
+
+    // Register many groups and channels at once, each array holds one value per group or channel
+    // On API 26+ all the groups then all the channels are created with a single system call each rather than one per channel
+    public static void RegisterChannels(Context ctx, String[] groupIds, String[] groupNames, String[] channelIds, String[] channelGroupIds, String[] channelNames, String[] channelDescriptions, boolean[] showOnStatusBar, boolean[] playSound, boolean[] showHeadsUp) {
+        if(ctx == null) return;
+
+        if(groupIds == null || groupNames == null || channelIds == null || channelGroupIds == null || channelNames == null || channelDescriptions == null || showOnStatusBar == null || playSound == null || showHeadsUp == null) {
+            Log.e("PicklePKG", "Failed to register notification channels! Null channel array!");
+            return;
+        }
+
+        int channelCount = channelIds.length;
+
+        if(groupNames.length != groupIds.length || channelGroupIds.length != channelCount || channelNames.length != channelCount || channelDescriptions.length != channelCount
+                || showOnStatusBar.length != channelCount || playSound.length != channelCount || showHeadsUp.length != channelCount) {
+            Log.e("PicklePKG", "Failed to register notification channels! Group arrays and channel arrays must each be the same length!");
+            return;
+        }
+
+        List<NotificationChannelGroup> systemGroups = new ArrayList<>(groupIds.length);
+        List<NotificationChannel> systemChannels = new ArrayList<>(channelCount);
+
+        for(int i=0;i < groupIds.length;++i) {
+            if (groupIds[i] == null) {
+                Log.e("PicklePKG", "Failed to create notification group! Group id was null!");
+                continue;
+            }
+
+            PutChannelGroup(groupIds[i], groupNames[i]);
+
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O)
+                systemGroups.add(new NotificationChannelGroup(groupIds[i], groupNames[i]));
+        }
+
+        for(int i=0;i < channelCount;++i) {
+            if (channelIds[i] == null || channelGroupIds[i] == null) {
+                Log.e("PicklePKG", "Failed to create notification channel! Channel id and group id must not be null!");
+                continue;
+            }
 
-            // Add information about the channel to a hashmap so we can treat all android versions as if they have channels
-            if (channelGroup.channelData.containsKey(id)) {
-                channelGroup.channelData.get(id).UpdateChannelData(name, description, showOnStatusBar, playSound, showHeadsUp);
+            ChannelData channelData = PutChannel(channelIds[i], channelGroupIds[i], channelNames[i], channelDescriptions[i], showOnStatusBar[i], playSound[i], showHeadsUp[i]);
+
+            if (channelData == null) {
+                Log.e("PicklePKG", "Failed to create notification channel " + channelIds[i] + "! Notification group with id " + channelGroupIds[i] + " does not exist!");
+                continue;
+            }
+
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O)
+                systemChannels.add(BuildNotificationChannel(channelIds[i], channelData));
+        }
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            // Notification channels & groups are only supported in API 26+
+            NotificationManager notificationManager = ctx.getSystemService(NotificationManager.class);
+
+            // Groups must exist before channels reference them
+            if (!systemGroups.isEmpty())
+                notificationManager.createNotificationChannelGroups(systemGroups);
+
+            if (!systemChannels.isEmpty())
+                notificationManager.createNotificationChannels(systemChannels);
+        }
+    }
+
+    private static void PutChannelGroup(String id, String name) {
+        synchronized (registryLock) {
+            ChannelGroupData channelGroup = channelGroups.get(id);
+
+            if (channelGroup != null) {
+                channelGroup.name = name;
             } else {
-                channelGroup.channelData.put(id, new ChannelData(groupId, name, description, showOnStatusBar, playSound, showHeadsUp));
+                channelGroups.put(id, new ChannelGroupData(name));
             }
+        }
+    }
 
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                // Notification channels & groups are only supported in API 26+
-                ChannelData channelData = GetChannelDataById(id);
+    // Returns the registered channel data or null if the group doesn't exist
+    private static ChannelData PutChannel(String id, String groupId, String name, String description, boolean showOnStatusBar, boolean playSound, boolean showHeadsUp) {
+        synchronized (registryLock) {
+            ChannelGroupData channelGroup = channelGroups.get(groupId);
 
-                if(channelData != null) {
-                    NotificationChannel channel = new NotificationChannel(id, name, GetNeededImportanceLevel(channelData));
-                    channel.setDescription(description);
-                    channel.setGroup(groupId);
+            if (channelGroup == null) return null;
 
-                    NotificationManager notificationManager = ctx.getSystemService(NotificationManager.class);
-                    notificationManager.createNotificationChannel(channel);
-                } else {
-                    Log.e("PicklePKG", "Failed to create notification channel! Channel data was null after creation!");
-                }
+            ChannelData previousChannelData = channelsById.get(id);
+
+            // The channel is moving to a different group
+            if (previousChannelData != null && !previousChannelData.groupId.equals(groupId)) {
+                ChannelGroupData previousChannelGroup = channelGroups.get(previousChannelData.groupId);
+
+                if (previousChannelGroup != null)
+                    previousChannelGroup.channelData.remove(id);
             }
-        } else {
-            Log.e("PicklePKG", "Failed to create notification channel! Notification group with id " + groupId + " does not exist!");
+
+            ChannelData channelData = new ChannelData(groupId, name, description, showOnStatusBar, playSound, showHeadsUp);
+
+            channelGroup.channelData.put(id, channelData);
+            channelsById.put(id, channelData);
+
+            return channelData;
         }
     }
 
+    @RequiresApi(Build.VERSION_CODES.O)
+    private static NotificationChannel BuildNotificationChannel(String id, ChannelData channelData) {
+        NotificationChannel channel = new NotificationChannel(id, channelData.name, GetNeededImportanceLevel(channelData));
+        channel.setDescription(channelData.description);
+        channel.setGroup(channelData.groupId);
+
+        return channel;
+    }
+
     private static int GetNeededImportanceLevel(ChannelData channelData) {
         int importanceLevel = IMPORTANCE_MIN; // MIN importance gives no sound, heads-up or showing on status bar
 
@@ -217,9 +334,16 @@ public class LocalNotifications extends BroadcastReceiver {
 
     // Note: This also deletes all channels within the group
     public static void DeleteNotificationChannelGroup(Context ctx, String id) {
-        if(ctx == null) return;
+        if(ctx == null || id == null) return;
+
+        synchronized (registryLock) {
+            ChannelGroupData channelGroup = channelGroups.remove(id);
 
-        channelGroups.remove(id);
+            if (channelGroup != null) {
+                for (String channelId : channelGroup.channelData.keySet())
+                    channelsById.remove(channelId);
+            }
+        }
 
         // Allow deleting of channel groups even if they're not found in the channelGroups hash map as it won't cause any problems if not found
         // And maybe the app wants to delete groups created from previous sessions?
@@ -231,12 +355,17 @@ public class LocalNotifications extends BroadcastReceiver {
     }
 
     public static void DeleteNotificationChannel(Context ctx, String id) {
-        if(ctx == null) return;
+        if(ctx == null || id == null) return;
+
+        synchronized (registryLock) {
+            ChannelData channelData = channelsById.remove(id);
 
-        for (int groupInt = 0; groupInt < channelGroups.size(); groupInt++) {
-            ChannelGroupData channelGroup = channelGroups.get(groupInt);
+            if (channelData != null) {
+                ChannelGroupData channelGroup = channelGroups.get(channelData.groupId);
 
-            channelGroup.channelData.remove(id);
+                if (channelGroup != null)
+                    channelGroup.channelData.remove(id);
+            }
         }
 
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
@@ -247,14 +376,7 @@ public class LocalNotifications extends BroadcastReceiver {
     }
 
     private static ChannelData GetChannelDataById(String id) {
-        for (Map.Entry<String, ChannelGroupData> channelGroup : channelGroups.entrySet()) {
-            ChannelGroupData groupData = channelGroup.getValue();
-
-            if (groupData.channelData.containsKey(id))
-                return groupData.channelData.get(id);
-        }
-
-        return null;
+        return id != null ? channelsById.get(id) : null;
     }
 
     public static void SendNotification(Context ctx, Activity activity, int notificationId, String channelId, String msgTitle, String msgBody, int sendAfterSeconds, String smallIconName, String largeIconName) {
@@ -269,7 +391,6 @@ public class LocalNotifications extends BroadcastReceiver {
         SendNotification(ctx, activity, notificationId, channelId, msgTitle, msgBody, sendAfterSeconds, "notification_icon", "", true);
     }
 
-    @SuppressLint("MissingPermission")
     public static void SendNotification(Context ctx, Activity activity, int notificationId, String channelId, String msgTitle, String msgBody, int sendAfterSeconds, String smallIconName, String largeIconName, boolean removeWhenTapped) {
         if(ctx == null || activity == null || activity.isFinishing() || activity.isDestroyed()) return;
 
@@ -285,75 +406,114 @@ public class LocalNotifications extends BroadcastReceiver {
             return;
         }
 
-        // Create the intent which will be called when the alarm service triggers
-        // This should contain everything needed for the notification
-        Intent intent = new Intent(ctx, LocalNotifications.class);
-
-        if (intent == null) {
-            Log.e("PicklePKG", "Failed to show notification! intent was null!");
-            return;
-        }
+        // Stored in the persistent schedule rather than as alarm intent extras so it survives reboots and app updates
+        List<NotificationSchedule.Entry> entries = new ArrayList<>(1);
+        entries.add(new NotificationSchedule.Entry(notificationId, channelId, msgTitle, msgBody, sendAfterSeconds, smallIconName,
+                largeIconName != null ? largeIconName : "", removeWhenTapped, GetNeededPriorityLevel(channelData), System.currentTimeMillis() + (sendAfterSeconds * 1000L)));
 
-        intent.putExtra("notificationId", notificationId);
-        intent.putExtra("channelId", channelId);
-        intent.putExtra("msgTitle", msgTitle);
-        intent.putExtra("msgBody", msgBody);
-        intent.putExtra("sendAfterSeconds", sendAfterSeconds);
-        intent.putExtra("smallIconName", smallIconName);
-        intent.putExtra("largeIconName", largeIconName);
-        intent.putExtra("removeWhenTapped", removeWhenTapped);
-        intent.putExtra("priority", GetNeededPriorityLevel(channelData));
+        NotificationSchedule.Add(ctx, entries);
+        ArmNextScheduledAlarm(ctx);
+    }
 
-        PendingIntent alarmIntent = PendingIntent.getBroadcast(activity, notificationId, intent, PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+    // Schedule many notifications at once, each array holds one value per notification
+    // Channel and permission lookups happen once for the whole batch and only the nearest notification registers an alarm,
+    // when it fires any due notifications are posted and the alarm is re-armed for the next one
+    public static void SendNotifications(Context ctx, Activity activity, int[] notificationIds, String[] channelIds, String[] msgTitles, String[] msgBodies, int[] sendAfterSeconds, String[] smallIconNames, String[] largeIconNames, boolean[] removeWhenTapped) {
+        if(ctx == null || activity == null || activity.isFinishing() || activity.isDestroyed()) return;
 
-        if (alarmIntent == null) {
-            Log.e("PicklePKG", "Failed to show notification! alarmIntent was null!");
+        if(notificationIds == null || channelIds == null || msgTitles == null || msgBodies == null || sendAfterSeconds == null || smallIconNames == null || largeIconNames == null || removeWhenTapped == null) {
+            Log.e("PicklePKG", "Failed to send notifications! Null notification array!");
             return;
         }
 
-        AlarmManager alarmManager = (AlarmManager) activity.getSystemService(Context.ALARM_SERVICE);
+        int notificationCount = notificationIds.length;
 
-        if (alarmManager == null) {
-            Log.e("PicklePKG", "Failed to show notification! alarmManager was null!");
+        if(channelIds.length != notificationCount || msgTitles.length != notificationCount || msgBodies.length != notificationCount || sendAfterSeconds.length != notificationCount
+                || smallIconNames.length != notificationCount || largeIconNames.length != notificationCount || removeWhenTapped.length != notificationCount) {
+            Log.e("PicklePKG", "Failed to send notifications! Notification arrays must all be the same length!");
             return;
         }
 
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-            // Get app package name
-            String packageName = AppInfo.GetSelfPackageName(ctx);
+        long currentTimeMillis = System.currentTimeMillis();
+        Map<String, ChannelData> resolvedChannels = new HashMap<>();
+        List<NotificationSchedule.Entry> entries = new ArrayList<>(notificationCount);
 
-            if (packageName.isEmpty()) {
-                Log.e("PicklePKG", "LocalNotifications.SendNotification(..) GetSelfPackageName() was empty!");
-                return;
-            }
+        for(int i=0;i < notificationCount;++i) {
+            String channelId = channelIds[i];
+            ChannelData channelData = resolvedChannels.get(channelId);
+
+            if(channelData == null) {
+                channelData = GetChannelDataById(channelId);
 
-            // Get app package manager reference
-            PackageManager ctxPackageManager = ctx.getPackageManager();
+                if (channelData == null) {
+                    Log.e("PicklePKG", "Failed to send notification " + notificationIds[i] + "! Invalid channel ID, make sure to call CreateNotificationChannel(..) before sending a notification!");
+                    continue;
+                }
 
-            if (ctxPackageManager == null) {
-                Log.e("PicklePKG", "LocalNotifications.SendNotification(..) failed to get getPackageManager()");
-                return;
+                resolvedChannels.put(channelId, channelData);
             }
 
-            // Android 12+ requires android.permission.SCHEDULE_EXACT_ALARM to use setExact and policy says it must only be used for user scheduled events
-            if(ctxPackageManager.checkPermission(Manifest.permission.SCHEDULE_EXACT_ALARM, packageName) == PackageManager.PERMISSION_GRANTED){
-                // The app has SCHEDULE_EXACT_ALARM permission, use setExact
-                alarmManager.setExact(AlarmManager.RTC_WAKEUP, System.currentTimeMillis() + (sendAfterSeconds * 1000L), alarmIntent);
-            } else {
-                // Fallback to inexact scheduling, the system can delay this until the device wakes up for other actions or can re-order notifications to save battery
-                alarmManager.set(AlarmManager.RTC_WAKEUP, System.currentTimeMillis() + (sendAfterSeconds * 1000L), alarmIntent);
+            if (smallIconNames[i] == null || smallIconNames[i].isEmpty()) {
+                Log.e("PicklePKG", "Could not send notification " + notificationIds[i] + "! Small icon name not set, this would result in a crash when delivering the notification!");
+                continue;
             }
+
+            entries.add(new NotificationSchedule.Entry(notificationIds[i], channelId, msgTitles[i], msgBodies[i], sendAfterSeconds[i], smallIconNames[i],
+                    largeIconNames[i] != null ? largeIconNames[i] : "", removeWhenTapped[i], GetNeededPriorityLevel(channelData), currentTimeMillis + (sendAfterSeconds[i] * 1000L)));
+        }
+
+        if(entries.isEmpty()) return;
+
+        NotificationSchedule.Add(ctx, entries);
+        ArmNextScheduledAlarm(ctx);
+    }
+
+    // Register a single alarm for the nearest scheduled notification (or cancel it if nothing is scheduled)
+    private static void ArmNextScheduledAlarm(Context ctx) {
+        AlarmManager alarmManager = (AlarmManager) ctx.getSystemService(Context.ALARM_SERVICE);
+
+        if (alarmManager == null) {
+            Log.e("PicklePKG", "Failed to schedule notifications! alarmManager was null!");
+            return;
+        }
+
+        Intent intent = new Intent(ctx, LocalNotifications.class);
+        intent.setAction(ACTION_SCHEDULED_ALARM);
+
+        PendingIntent alarmIntent = PendingIntent.getBroadcast(ctx, SCHEDULED_ALARM_REQUEST_CODE, intent, PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+
+        long nextTriggerAtMillis = NotificationSchedule.GetNextTriggerTime(ctx);
+
+        if(nextTriggerAtMillis == Long.MAX_VALUE) {
+            alarmManager.cancel(alarmIntent);
+        } else if(CanScheduleExactAlarms(ctx)) {
+            alarmManager.setExact(AlarmManager.RTC_WAKEUP, nextTriggerAtMillis, alarmIntent);
         } else {
-            alarmManager.set(AlarmManager.RTC_WAKEUP, System.currentTimeMillis() + (sendAfterSeconds * 1000L), alarmIntent);
+            alarmManager.set(AlarmManager.RTC_WAKEUP, nextTriggerAtMillis, alarmIntent);
         }
     }
 
+    @SuppressLint("ScheduleExactAlarm")
+    private static boolean CanScheduleExactAlarms(Context ctx) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) return false;
+
+        PackageManager ctxPackageManager = ctx.getPackageManager();
+
+        // Android 12+ requires android.permission.SCHEDULE_EXACT_ALARM to use setExact and policy says it must only be used for user scheduled events
+        return ctxPackageManager != null && ctxPackageManager.checkPermission(Manifest.permission.SCHEDULE_EXACT_ALARM, ctx.getPackageName()) == PackageManager.PERMISSION_GRANTED;
+    }
+
     public static void CancelNotification(Context ctx, Activity activity, int notificationId) {
         if(ctx == null || activity == null || activity.isFinishing() || activity.isDestroyed()){
             Log.e("PicklePKG", "Failed to cancel notification! Invalid context or activity!");
             return;
         }
 
+        if(NotificationSchedule.Remove(ctx, notificationId))
+            ArmNextScheduledAlarm(ctx);
+
+        // Notifications scheduled by older versions of the plugin have their own alarm holding the notification in its extras
+
         Intent intent = new Intent(ctx, LocalNotifications.class);
 
         if (intent == null) {
@@ -378,6 +538,30 @@ public class LocalNotifications extends BroadcastReceiver {
         alarmManager.cancel(alarmIntent);
     }
 
+    // Every notification still waiting to be delivered, flattened as 5 values per notification:
+    // notification id, channel id, trigger time (unix milliseconds), title, body
+    public static String[] GetPendingNotifications(Context ctx) {
+        if(ctx == null) {
+            Log.e("PicklePKG", "LocalNotifications.GetPendingNotifications(..) ctx was null!");
+            return new String[0];
+        }
+
+        List<NotificationSchedule.Entry> entries = NotificationSchedule.GetAll(ctx);
+        String[] pendingNotifications = new String[entries.size() * 5];
+
+        for(int i=0;i < entries.size();++i) {
+            NotificationSchedule.Entry entry = entries.get(i);
+
+            pendingNotifications[i * 5] = String.valueOf(entry.notificationId);
+            pendingNotifications[i * 5 + 1] = entry.channelId;
+            pendingNotifications[i * 5 + 2] = String.valueOf(entry.triggerAtMillis);
+            pendingNotifications[i * 5 + 3] = entry.msgTitle;
+            pendingNotifications[i * 5 + 4] = entry.msgBody;
+        }
+
+        return pendingNotifications;
+    }
+
     public static String GetLaunchIntentExtras(Activity activity)
     {
         if(activity == null){
@@ -433,6 +617,30 @@ public class LocalNotifications extends BroadcastReceiver {
             return;
         }
 
+        String action = alarmIntent.getAction();
+
+        // Icons are decoded and the schedule file is read off the main thread, goAsync keeps the receiver alive until it's done
+        final PendingResult pendingResult = goAsync();
+
+        // Notifications are built on the shared background pool, the schedule is synchronized so concurrent deliveries are safe
+        PluginExecutors.Execute(() -> {
+            try {
+                // Alarms are cleared on reboot and when the app is updated, anything missed meanwhile is posted and the next alarm re-armed
+                if (ACTION_SCHEDULED_ALARM.equals(action) || Intent.ACTION_BOOT_COMPLETED.equals(action) || Intent.ACTION_MY_PACKAGE_REPLACED.equals(action)) {
+                    OnScheduledAlarm(ctx);
+                } else {
+                    OnLegacyAlarm(ctx, alarmIntent);
+                }
+            } catch (Exception e) {
+                Log.e("PicklePKG", "LocalNotifications.onReceive(..) failed to deliver notification - " + e);
+            } finally {
+                pendingResult.finish();
+            }
+        });
+    }
+
+    // Alarm registered by an older version of the plugin with the notification stored in the intent extras
+    private static void OnLegacyAlarm(Context ctx, Intent alarmIntent) {
         // As of API 33+ the POST_NOTIFICATIONS permission is required to send notifications
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU && ContextCompat.checkSelfPermission(ctx, Manifest.permission.POST_NOTIFICATIONS) != PackageManager.PERMISSION_GRANTED) {
             Log.e("PicklePKG", "Failed to show notification! App was not given POST_NOTIFICATIONS permission!");
@@ -450,7 +658,26 @@ public class LocalNotifications extends BroadcastReceiver {
         boolean removeWhenTapped = alarmIntent.getBooleanExtra("removeWhenTapped", true);
         int priority = alarmIntent.getIntExtra("priority", PRIORITY_DEFAULT);
 
+        ShowNotification(ctx, notificationId, channelId, msgTitle, msgBody, sendAfterSeconds, smallIconName, largeIconName, removeWhenTapped, priority);
+    }
+
+    // Posts every scheduled notification which is now due then re-arms the alarm for the next one
+    private static void OnScheduledAlarm(Context ctx) {
+        List<NotificationSchedule.Entry> dueEntries = NotificationSchedule.RemoveDue(ctx, System.currentTimeMillis() + SCHEDULED_DUE_TOLERANCE_MS);
 
+        // As of API 33+ the POST_NOTIFICATIONS permission is required to send notifications
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU && ContextCompat.checkSelfPermission(ctx, Manifest.permission.POST_NOTIFICATIONS) != PackageManager.PERMISSION_GRANTED) {
+            Log.e("PicklePKG", "Failed to show notification! App was not given POST_NOTIFICATIONS permission!");
+        } else {
+            for(NotificationSchedule.Entry entry : dueEntries)
+                ShowNotification(ctx, entry.notificationId, entry.channelId, entry.msgTitle, entry.msgBody, entry.sendAfterSeconds, entry.smallIconName, entry.largeIconName, entry.removeWhenTapped, entry.priority);
+        }
+
+        ArmNextScheduledAlarm(ctx);
+    }
+
+    @SuppressLint("MissingPermission")
+    private static void ShowNotification(Context ctx, int notificationId, String channelId, String msgTitle, String msgBody, int sendAfterSeconds, String smallIconName, String largeIconName, boolean removeWhenTapped, int priority) {
         NotificationManagerCompat notificationManager = NotificationManagerCompat.from(ctx);
 
         if (notificationManager == null) {
@@ -487,18 +714,18 @@ public class LocalNotifications extends BroadcastReceiver {
         if (res != null) {
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
                 builder = new NotificationCompat.Builder(ctx, channelId)
-                        .setSmallIcon(res.getIdentifier(smallIconName, "drawable", ctx.getPackageName()))
+                        .setSmallIcon(NotificationAssets.GetDrawableId(ctx, smallIconName))
                         .setContentTitle(msgTitle)
                         .setContentText(msgBody)
                         .setContentIntent(pendingIntent)
                         .setAutoCancel(removeWhenTapped)
                         .setVisibility(VISIBILITY_PUBLIC);
 
-                if (!largeIconName.isEmpty())
-                    builder.setLargeIcon(BitmapFactory.decodeResource(res, res.getIdentifier(largeIconName, "drawable", ctx.getPackageName())));
+                if (largeIconName != null && !largeIconName.isEmpty())
+                    builder.setLargeIcon(NotificationAssets.GetLargeIcon(ctx, largeIconName));
             } else {
                 builder = new NotificationCompat.Builder(ctx, "default")
-                        .setSmallIcon(ctx.getResources().getIdentifier(smallIconName, "drawable", ctx.getPackageName()))
+                        .setSmallIcon(NotificationAssets.GetDrawableId(ctx, smallIconName))
                         .setContentTitle(msgTitle)
                         .setContentText(msgBody)
                         .setContentIntent(pendingIntent)
@@ -507,8 +734,8 @@ public class LocalNotifications extends BroadcastReceiver {
 
                 builder.setVisibility(VISIBILITY_PUBLIC);
 
-                if (!largeIconName.isEmpty())
-                    builder.setLargeIcon(BitmapFactory.decodeResource(res, res.getIdentifier(largeIconName, "drawable", ctx.getPackageName())));
+                if (largeIconName != null && !largeIconName.isEmpty())
+                    builder.setLargeIcon(NotificationAssets.GetLargeIcon(ctx, largeIconName));
             }
         } else {
             Log.e("PicklePKG", "Failed to show notification! res was null!");
@@ -0,0 +1,168 @@
+package com.pickle.picklecore;
+
+import android.os.Looper;
+import android.util.Printer;
+
+// Opt-in timing of every message the main looper dispatches, catches the frame hitches which are far too short for ANRSupervisor
+// Looper logs a line before and after each dispatched message, we time between the two and record the duration into
+// a log-linear (HDR style) histogram held in a primitive array so percentiles can be fetched at any time
+// Note: Looper only supports a single message Printer, starting this replaces any other Printer set on the main looper
+public class LooperMonitor {
+
+    // 32 linear sub buckets per power of two keeps every recorded value within ~6% of its true value
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKET_COUNT = SUB_BUCKET_COUNT / 2;
+    private static final int MAX_MAGNITUDE = 36; // 2^36 microseconds is well beyond anything that wouldn't have been an ANR
+    private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (MAX_MAGNITUDE - SUB_BUCKET_BITS) * HALF_SUB_BUCKET_COUNT;
+
+    private static final int SLOW_MESSAGE_CAPACITY = 32;
+
+    private static final long[] histogramCounts = new long[BUCKET_COUNT];
+    private static long totalCount;
+    private static long maxMicroseconds;
+
+    // Ring buffer of the most recent messages which took longer than the slow threshold
+    private static final String[] slowMessageTargets = new String[SLOW_MESSAGE_CAPACITY];
+    private static final long[] slowMessageMicroseconds = new long[SLOW_MESSAGE_CAPACITY];
+    private static int nextSlowMessage;
+    private static int slowMessageCount;
+
+    private static volatile long slowThresholdNanos = 16_000_000L;
+    private static boolean isRunning;
+
+    // Only touched on the main thread by the Printer
+    private static long dispatchStartNanos;
+    private static String dispatchLine;
+
+    private static final Printer messagePrinter = line -> {
+        if(line == null) return;
+
+        if(line.startsWith(">>>>> Dispatching")) {
+            dispatchLine = line;
+            dispatchStartNanos = System.nanoTime();
+        } else if(line.startsWith("<<<<< Finished") && dispatchStartNanos != 0L) {
+            long durationNanos = System.nanoTime() - dispatchStartNanos;
+            dispatchStartNanos = 0L;
+
+            Record(durationNanos, dispatchLine);
+        }
+    };
+
+    public static synchronized void Start(long slowThresholdMicroseconds) {
+        slowThresholdNanos = Math.max(slowThresholdMicroseconds, 0L) * 1000L;
+
+        if(isRunning) return;
+
+        Looper.getMainLooper().setMessageLogging(messagePrinter);
+        isRunning = true;
+    }
+
+    public static synchronized void Stop() {
+        if(!isRunning) return;
+
+        Looper.getMainLooper().setMessageLogging(null);
+        isRunning = false;
+    }
+
+    public static synchronized void Reset() {
+        for(int i=0;i < BUCKET_COUNT;++i)
+            histogramCounts[i] = 0L;
+
+        for(int i=0;i < SLOW_MESSAGE_CAPACITY;++i)
+            slowMessageTargets[i] = null;
+
+        totalCount = 0L;
+        maxMicroseconds = 0L;
+        nextSlowMessage = 0;
+        slowMessageCount = 0;
+    }
+
+    // Returns {message count, p50, p95, p99, max} with the durations in microseconds
+    public static synchronized long[] GetLatencyPercentiles() {
+        return new long[]{ totalCount, GetPercentile(0.5d), GetPercentile(0.95d), GetPercentile(0.99d), maxMicroseconds };
+    }
+
+    // The most recent slow messages newest first, one "<handler class> <duration microseconds>" per line
+    public static synchronized String GetSlowMessages() {
+        StringBuilder report = new StringBuilder();
+
+        for(int i=1;i <= slowMessageCount;++i) {
+            int slot = (nextSlowMessage - i + SLOW_MESSAGE_CAPACITY) % SLOW_MESSAGE_CAPACITY;
+
+            report.append(slowMessageTargets[slot]).append(' ').append(slowMessageMicroseconds[slot]).append('\n');
+        }
+
+        return report.toString();
+    }
+
+    static synchronized void Record(long durationNanos, String line) {
+        long durationMicroseconds = durationNanos / 1000L;
+
+        histogramCounts[GetBucketIndex(durationMicroseconds)]++;
+        totalCount++;
+
+        if(durationMicroseconds > maxMicroseconds)
+            maxMicroseconds = durationMicroseconds;
+
+        if(durationNanos >= slowThresholdNanos) {
+            // Only slow messages pay for parsing out the target handler
+            slowMessageTargets[nextSlowMessage] = ParseTarget(line);
+            slowMessageMicroseconds[nextSlowMessage] = durationMicroseconds;
+
+            nextSlowMessage = (nextSlowMessage + 1) % SLOW_MESSAGE_CAPACITY;
+            if(slowMessageCount < SLOW_MESSAGE_CAPACITY) slowMessageCount++;
+        }
+    }
+
+    private static long GetPercentile(double percentile) {
+        if(totalCount == 0L) return 0L;
+
+        long targetCount = Math.max((long) Math.ceil(totalCount * percentile), 1L);
+        long runningCount = 0L;
+
+        for(int i=0;i < BUCKET_COUNT;++i) {
+            runningCount += histogramCounts[i];
+
+            if(runningCount >= targetCount)
+                return Math.min(GetBucketHighestValue(i), maxMicroseconds);
+        }
+
+        return maxMicroseconds;
+    }
+
+    // Values below SUB_BUCKET_COUNT get their own bucket, above that each power of two is split into HALF_SUB_BUCKET_COUNT buckets
+    static int GetBucketIndex(long value) {
+        if(value < SUB_BUCKET_COUNT) return (int) Math.max(value, 0L);
+
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+
+        if(magnitude >= MAX_MAGNITUDE) return BUCKET_COUNT - 1;
+
+        int shift = magnitude - (SUB_BUCKET_BITS - 1);
+        int subBucket = (int) (value >> shift) - HALF_SUB_BUCKET_COUNT;
+
+        return SUB_BUCKET_COUNT + (magnitude - SUB_BUCKET_BITS) * HALF_SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long GetBucketHighestValue(int index) {
+        if(index < SUB_BUCKET_COUNT) return index;
+
+        int offset = index - SUB_BUCKET_COUNT;
+        int magnitude = SUB_BUCKET_BITS + offset / HALF_SUB_BUCKET_COUNT;
+        int shift = magnitude - (SUB_BUCKET_BITS - 1);
+        long subBucket = HALF_SUB_BUCKET_COUNT + offset % HALF_SUB_BUCKET_COUNT;
+
+        return ((subBucket + 1L) << shift) - 1L;
+    }
+
+    // Looper logs ">>>>> Dispatching to Handler (android.view.Choreographer$FrameHandler) {a1b2c3} callback: what"
+    private static String ParseTarget(String line) {
+        if(line == null) return "unknown";
+
+        int start = line.indexOf('(');
+        int end = start >= 0 ? line.indexOf(')', start) : -1;
+
+        return start >= 0 && end > start ? line.substring(start + 1, end) : line;
+    }
+}
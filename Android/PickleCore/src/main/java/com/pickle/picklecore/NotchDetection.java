@@ -0,0 +1,278 @@
+package com.pickle.picklecore;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.content.res.Resources;
+import android.util.Log;
+
+import java.lang.reflect.Method;
+
+// Before android 9 every manufacturer did their own notch implementation..
+// Each manufacturer check is a strategy, the whole chain is probed once per process in order. Detection and size are checked
+// separately as some manufacturers expose them through different APIs, the same as the original checks the first strategy to answer
+// decides if there's a notch but the size reported last wins. None of these values can change at runtime so the result is cached
+public class NotchDetection {
+
+    // Results of NotchStrategy.DetectNotch(..)
+    public static final int NOTCH_NOT_CHECKED = 0; // Not this manufacturer's device, carry on down the chain
+    public static final int NOTCH_DETECTED = 1;
+    public static final int NOTCH_NOT_DETECTED = 2; // This manufacturer's API said there's no notch, the rest of the chain isn't asked
+
+    public interface NotchStrategy {
+        // Return one of the NOTCH_* results (throwing counts as NOTCH_NOT_CHECKED)
+        int DetectNotch(DeviceSource device) throws Exception;
+
+        // Return the notch height in pixels this manufacturer reports or 0 if it doesn't report one (throwing counts as 0)
+        int ProbeNotchSize(DeviceSource device) throws Exception;
+    }
+
+    // Everything the strategies read from the device, passed in so each strategy can be run against a fake device
+    public interface DeviceSource {
+        ClassLoader GetClassLoader();
+        String GetSystemProperty(String propName);
+        boolean HasSystemFeature(String featureName);
+
+        // Framework ("android" package) resources, 0 or null if the resource doesn't exist on this device
+        int GetAndroidDimensionPixelSize(String name);
+        String GetAndroidString(String name);
+
+        // Screen density in dpi, 0 or less if it couldn't be read
+        float GetDensityDpi();
+    }
+
+    // The real device, read through the context
+    public static class ContextDeviceSource implements DeviceSource {
+        private final Context ctx;
+
+        public ContextDeviceSource(Context inCtx) {
+            ctx = inCtx;
+        }
+
+        @Override public ClassLoader GetClassLoader() {
+            return ctx.getClassLoader();
+        }
+
+        @Override public String GetSystemProperty(String propName) {
+            return SystemProperties.getProperty(propName);
+        }
+
+        @Override public boolean HasSystemFeature(String featureName) {
+            PackageManager packageManager = ctx.getPackageManager();
+
+            return packageManager != null && packageManager.hasSystemFeature(featureName);
+        }
+
+        @Override public int GetAndroidDimensionPixelSize(String name) {
+            Resources res = ctx.getResources();
+            int resId = ResourceIds.GetIdentifier(ctx, name, "dimen", "android");
+
+            return res != null && resId > 0 ? res.getDimensionPixelSize(resId) : 0;
+        }
+
+        @Override public String GetAndroidString(String name) {
+            Resources res = ctx.getResources();
+            int resId = ResourceIds.GetIdentifier(ctx, name, "string", "android");
+
+            return res != null && resId > 0 ? res.getString(resId) : null;
+        }
+
+        @Override public float GetDensityDpi() {
+            return SystemInfo.ComputeDensity(ctx);
+        }
+    }
+
+    // Huawei display cutout https://developer.huawei.com/consumer/cn/devservice/doc/50114
+    public static class HuaweiStrategy implements NotchStrategy {
+        @Override public int DetectNotch(DeviceSource device) throws Exception {
+            Class<?> hwNotchSizeUtil = device.GetClassLoader().loadClass("com.huawei.android.util.HwNotchSizeUtil");
+            Method hasNotchInScreen = hwNotchSizeUtil.getMethod("hasNotchInScreen");
+
+            return (boolean) hasNotchInScreen.invoke(hwNotchSizeUtil) ? NOTCH_DETECTED : NOTCH_NOT_DETECTED;
+        }
+
+        // Read regardless of hasNotchInScreen() as the original size check did
+        @Override public int ProbeNotchSize(DeviceSource device) throws Exception {
+            Class<?> hwNotchSizeUtil = device.GetClassLoader().loadClass("com.huawei.android.util.HwNotchSizeUtil");
+            Method getNotchSize = hwNotchSizeUtil.getMethod("getNotchSize");
+            int[] size = (int[]) getNotchSize.invoke(hwNotchSizeUtil);
+
+            return size != null && size.length >= 2 && size[1] > 0 ? size[1] : 0;
+        }
+    }
+
+    // Oppo display cutout https://open.oppomobile.com/wiki/doc#id=10159
+    // Only the system feature means there's a notch, the property is just where the size comes from
+    public static class OppoStrategy implements NotchStrategy {
+        @Override public int DetectNotch(DeviceSource device) {
+            return device.HasSystemFeature("com.oppo.feature.screen.heteromorphism") ? NOTCH_DETECTED : NOTCH_NOT_CHECKED;
+        }
+
+        @Override public int ProbeNotchSize(DeviceSource device) {
+            // The property is the notch distance from left/top in order of: left, top, right, bottom
+            String[] splitOppoNotchProperty = device.GetSystemProperty("ro.oppo.screen.heteromorphism").split("[,:]");
+
+            if(splitOppoNotchProperty.length != 4) return 0;
+
+            int[] oppoNotchPropertyValues = new int[4];
+
+            try {
+                for(int i=0;i < 4;++i)
+                    oppoNotchPropertyValues[i] = Integer.parseInt(splitOppoNotchProperty[i]);
+            } catch(NumberFormatException e){
+                return 0;
+            }
+
+            return Math.max(oppoNotchPropertyValues[3], 0);
+        }
+    }
+
+    // Vivo display cutout https://dev.vivo.com.cn/documentCenter/doc/145
+    public static class VivoStrategy implements NotchStrategy {
+        @Override public int DetectNotch(DeviceSource device) throws Exception {
+            Method isFeatureSupport = FindIsFeatureSupport(device);
+
+            if(isFeatureSupport == null) return NOTCH_NOT_CHECKED;
+
+            return (boolean) isFeatureSupport.invoke(null, 0x00000020) ? NOTCH_DETECTED : NOTCH_NOT_DETECTED; // 0x00000020 is the screen notch feature
+        }
+
+        @Override public int ProbeNotchSize(DeviceSource device) throws Exception {
+            if(DetectNotch(device) != NOTCH_DETECTED) return 0;
+
+            // Vivo doesn't directly have any way of getting any info about the notch size..
+            // from their documentation though it seems to always be 32dp
+            float dpi = device.GetDensityDpi();
+            if(dpi <= 0) dpi = 160f; // Fallback to the android baseline dpi if we failed to get dpi
+
+            return (int) Math.ceil(32f * (dpi / 160f));
+        }
+
+        @SuppressLint("PrivateApi")
+        private static Method FindIsFeatureSupport(DeviceSource device) throws ClassNotFoundException {
+            Class<?> ftFeature = device.GetClassLoader().loadClass("android.util.FtFeature");
+
+            for(Method method : ftFeature.getDeclaredMethods()){
+                if(method != null && method.getName().equalsIgnoreCase("isFeatureSupport"))
+                    return method;
+            }
+
+            return null;
+        }
+    }
+
+    // Xiaomi display cutout https://dev.mi.com/console/doc/detail?pId=1293 https://dev.mi.com/console/doc/detail?pId=1341
+    public static class XiaomiStrategy implements NotchStrategy {
+        @Override public int DetectNotch(DeviceSource device) {
+            return device.GetSystemProperty("ro.miui.notch").equals("1") ? NOTCH_DETECTED : NOTCH_NOT_CHECKED;
+        }
+
+        @Override public int ProbeNotchSize(DeviceSource device) {
+            if(DetectNotch(device) != NOTCH_DETECTED) return 0;
+
+            return Math.max(device.GetAndroidDimensionPixelSize("notch_height"), 0);
+        }
+    }
+
+    // Samsung basically had 1 device which wasn't on Android P with a notch/hole punch, the Galaxy A8s (SM-68870)
+    // Documentation for how the hole punch is defined is here http://support-cn.samsung.com/Upload/DeveloperChina/DeveloperChinaFile/201812121519497015B9B23C0D7.pdf
+    public static class SamsungStrategy implements NotchStrategy {
+        @Override public int DetectNotch(DeviceSource device) {
+            String spec = device.GetAndroidString("config_mainBuiltInDisplayCutout");
+
+            return spec != null && !spec.isEmpty() ? NOTCH_DETECTED : NOTCH_NOT_CHECKED;
+        }
+
+        @Override public int ProbeNotchSize(DeviceSource device) {
+            if(DetectNotch(device) != NOTCH_DETECTED) return 0;
+
+            return Math.max(device.GetAndroidDimensionPixelSize("status_bar_height"), 0);
+        }
+    }
+
+    private static NotchStrategy[] strategies = new NotchStrategy[]{
+        new HuaweiStrategy(), new OppoStrategy(), new VivoStrategy(), new XiaomiStrategy(), new SamsungStrategy()
+    };
+
+    private static volatile boolean isProbed;
+    private static NotchStrategy detectedStrategy;
+    private static int detectedNotchSize;
+
+    // Manufacturer notch height in pixels, 0 if the device doesn't have a pre android 9 manufacturer notch or the size is unknown
+    public static int GetNotchSize(Context ctx) {
+        if(!isProbed)
+            Probe(ctx);
+
+        return detectedNotchSize;
+    }
+
+    public static boolean HasNotch(Context ctx) {
+        if(!isProbed)
+            Probe(ctx);
+
+        return detectedStrategy != null;
+    }
+
+    // Name of the manufacturer strategy which detected the notch or an empty string if none did
+    public static String GetDetectedStrategyName(Context ctx) {
+        if(!isProbed)
+            Probe(ctx);
+
+        return detectedStrategy != null ? detectedStrategy.getClass().getSimpleName() : "";
+    }
+
+    // Replace the strategy chain (e.g with fakes) and forget the previous probe result
+    static synchronized void setStrategies(NotchStrategy... newStrategies) {
+        strategies = newStrategies != null ? newStrategies : new NotchStrategy[0];
+        detectedStrategy = null;
+        detectedNotchSize = 0;
+        isProbed = false;
+    }
+
+    private static void Probe(Context ctx) {
+        if(ctx == null) return;
+
+        Probe(new ContextDeviceSource(ctx));
+    }
+
+    static synchronized void Probe(DeviceSource device) {
+        if(isProbed) return;
+
+        boolean isDetectionDecided = false;
+
+        for(NotchStrategy strategy : strategies) {
+            if(!isDetectionDecided) {
+                try {
+                    int detection = strategy.DetectNotch(device);
+
+                    if(detection != NOTCH_NOT_CHECKED) {
+                        isDetectionDecided = true;
+
+                        if(detection == NOTCH_DETECTED)
+                            detectedStrategy = strategy;
+                    }
+                } catch(Exception e) {
+                    LogProbeFailure(strategy, e);
+                }
+            }
+
+            try {
+                int notchSize = strategy.ProbeNotchSize(device);
+
+                if(notchSize > 0)
+                    detectedNotchSize = notchSize;
+            } catch(Exception e) {
+                LogProbeFailure(strategy, e);
+            }
+        }
+
+        isProbed = true;
+    }
+
+    private static void LogProbeFailure(NotchStrategy strategy, Exception e) {
+        // Missing vendor classes are expected on every device not made by that manufacturer
+        if(e instanceof ClassNotFoundException) return;
+
+        Log.w("PicklePKG", "NotchDetection.Probe(..) " + strategy.getClass().getSimpleName() + " failed - " + e);
+    }
+}
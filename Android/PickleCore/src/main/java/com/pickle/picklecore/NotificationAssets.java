@@ -0,0 +1,79 @@
+package com.pickle.picklecore;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Log;
+import android.util.LruCache;
+
+// Resolves and decodes the icons used when delivering notifications
+// Large icons are decoded down to the size the system actually shows them at and kept in a small LRU so a burst of
+// notifications sharing an icon only decodes it once, drawable ids are resolved through the shared ResourceIds cache
+public class NotificationAssets {
+
+    // Large icons are ~64dp square so this holds a handful of them even on xxxhdpi devices
+    private static final int LARGE_ICON_CACHE_BYTES = 2 * 1024 * 1024;
+
+    private static final LruCache<String, Bitmap> largeIcons = new LruCache<String, Bitmap>(LARGE_ICON_CACHE_BYTES) {
+        @Override
+        protected int sizeOf(String key, Bitmap bitmap) {
+            return bitmap.getByteCount();
+        }
+    };
+
+    // Returns the drawable resource id for the name or 0 if it doesn't exist
+    public static int GetDrawableId(Context ctx, String name) {
+        if(ctx == null || name == null || name.isEmpty()) return 0;
+
+        return ResourceIds.GetIdentifier(ctx, name, "drawable", ctx.getPackageName());
+    }
+
+    // Returns the large icon decoded at (roughly) the system large icon size or null if it couldn't be decoded
+    // Decoding is slow, call this off the main thread
+    public static Bitmap GetLargeIcon(Context ctx, String name) {
+        if(ctx == null || name == null || name.isEmpty()) return null;
+
+        Bitmap largeIcon = largeIcons.get(name);
+
+        if(largeIcon != null) return largeIcon;
+
+        int drawableId = GetDrawableId(ctx, name);
+
+        if(drawableId == 0) {
+            Log.e("PicklePKG", "NotificationAssets.GetLargeIcon(..) drawable " + name + " not found!");
+            return null;
+        }
+
+        Resources res = ctx.getResources();
+
+        // Read just the dimensions first so the full resolution image is never allocated
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeResource(res, drawableId, options);
+
+        options.inSampleSize = GetSampleSize(options.outWidth, options.outHeight,
+                res.getDimensionPixelSize(android.R.dimen.notification_large_icon_width),
+                res.getDimensionPixelSize(android.R.dimen.notification_large_icon_height));
+        options.inJustDecodeBounds = false;
+
+        largeIcon = BitmapFactory.decodeResource(res, drawableId, options);
+
+        if(largeIcon != null)
+            largeIcons.put(name, largeIcon);
+
+        return largeIcon;
+    }
+
+    // Largest power of two which keeps the decoded image at least as big as the target size
+    private static int GetSampleSize(int width, int height, int targetWidth, int targetHeight) {
+        int sampleSize = 1;
+
+        if(width <= 0 || height <= 0 || targetWidth <= 0 || targetHeight <= 0) return sampleSize;
+
+        while((width / (sampleSize * 2)) >= targetWidth && (height / (sampleSize * 2)) >= targetHeight)
+            sampleSize *= 2;
+
+        return sampleSize;
+    }
+}
@@ -0,0 +1,301 @@
+package com.pickle.picklecore;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Every scheduled local notification, persisted so they survive reboots and app updates and only the nearest one needs an alarm
+// Stored as a file of fixed width records so adding, replacing or removing a notification only rewrites its own record
+// An in-memory index of notification id -> record slot (plus each slot's trigger time) is built by streaming just the record
+// headers the first time the schedule is used in a process
+public class NotificationSchedule {
+
+    private static final String FILE_NAME = "pickle_notification_schedule.bin";
+
+    // Record layout: state(1) removeWhenTapped(1) padding(2) notificationId(4) priority(4) sendAfterSeconds(4) triggerAtMillis(8)
+    // followed by the strings each as an unsigned short byte length then UTF-8 bytes
+    private static final int RECORD_SIZE = 2048;
+    private static final int HEADER_SIZE = 24;
+
+    private static final byte STATE_FREE = 0;
+    private static final byte STATE_USED = 1;
+
+    public static class Entry {
+        public int notificationId, sendAfterSeconds, priority;
+        public String channelId, msgTitle, msgBody, smallIconName, largeIconName;
+        public boolean removeWhenTapped;
+        public long triggerAtMillis;
+
+        public Entry(int inNotificationId, String inChannelId, String inMsgTitle, String inMsgBody, int inSendAfterSeconds, String inSmallIconName, String inLargeIconName, boolean inRemoveWhenTapped, int inPriority, long inTriggerAtMillis) {
+            notificationId = inNotificationId;
+            channelId = inChannelId;
+            msgTitle = inMsgTitle;
+            msgBody = inMsgBody;
+            sendAfterSeconds = inSendAfterSeconds;
+            smallIconName = inSmallIconName;
+            largeIconName = inLargeIconName;
+            removeWhenTapped = inRemoveWhenTapped;
+            priority = inPriority;
+            triggerAtMillis = inTriggerAtMillis;
+        }
+    }
+
+    private static RandomAccessFile scheduleFile;
+    private static int slotCount;
+
+    private static final Map<Integer, Integer> slotsById = new HashMap<>();
+    private static final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+    private static long[] triggerAtBySlot = new long[16];
+
+    // Reused for every record read and write, all access is synchronized
+    private static final byte[] recordBytes = new byte[RECORD_SIZE];
+    private static final ByteBuffer recordBuffer = ByteBuffer.wrap(recordBytes);
+
+    // Adds the entries to the schedule, replacing any already scheduled entries with the same notification id
+    public static synchronized void Add(Context ctx, List<Entry> newEntries) {
+        if(!Open(ctx)) return;
+
+        try {
+            for(Entry entry : newEntries) {
+                Integer slot = slotsById.get(entry.notificationId);
+
+                if(slot == null)
+                    slot = !freeSlots.isEmpty() ? freeSlots.poll() : slotCount++;
+
+                WriteRecord(slot, entry);
+
+                slotsById.put(entry.notificationId, slot);
+                SetSlotTrigger(slot, entry.triggerAtMillis);
+            }
+        } catch (IOException e) {
+            Log.e("PicklePKG", "NotificationSchedule.Add(..) failed to write schedule - " + e);
+        }
+    }
+
+    // Returns true if an entry with the notification id was scheduled
+    public static synchronized boolean Remove(Context ctx, int notificationId) {
+        if(!Open(ctx)) return false;
+
+        Integer slot = slotsById.get(notificationId);
+
+        if(slot == null) return false;
+
+        try {
+            FreeSlot(slot);
+        } catch (IOException e) {
+            Log.e("PicklePKG", "NotificationSchedule.Remove(..) failed to write schedule - " + e);
+            return false;
+        }
+
+        slotsById.remove(notificationId);
+        return true;
+    }
+
+    // Returns the scheduled entry with the notification id or null if it isn't scheduled
+    public static synchronized Entry Get(Context ctx, int notificationId) {
+        if(!Open(ctx)) return null;
+
+        Integer slot = slotsById.get(notificationId);
+
+        try {
+            return slot != null ? ReadRecord(slot) : null;
+        } catch (IOException e) {
+            Log.e("PicklePKG", "NotificationSchedule.Get(..) failed to read schedule - " + e);
+            return null;
+        }
+    }
+
+    // Every scheduled entry in no particular order
+    public static synchronized List<Entry> GetAll(Context ctx) {
+        List<Entry> entries = new ArrayList<>();
+
+        if(!Open(ctx)) return entries;
+
+        try {
+            for(int slot : slotsById.values())
+                entries.add(ReadRecord(slot));
+        } catch (IOException e) {
+            Log.e("PicklePKG", "NotificationSchedule.GetAll(..) failed to read schedule - " + e);
+        }
+
+        return entries;
+    }
+
+    // Removes and returns every entry due at or before the given time
+    public static synchronized List<Entry> RemoveDue(Context ctx, long timeMillis) {
+        List<Entry> dueEntries = new ArrayList<>();
+
+        if(!Open(ctx)) return dueEntries;
+
+        try {
+            for(int slot : slotsById.values()) {
+                if(triggerAtBySlot[slot] <= timeMillis)
+                    dueEntries.add(ReadRecord(slot));
+            }
+
+            for(Entry entry : dueEntries) {
+                FreeSlot(slotsById.remove(entry.notificationId));
+            }
+        } catch (IOException e) {
+            Log.e("PicklePKG", "NotificationSchedule.RemoveDue(..) failed to update schedule - " + e);
+        }
+
+        return dueEntries;
+    }
+
+    // Trigger time of the nearest scheduled entry or Long.MAX_VALUE if nothing is scheduled
+    public static synchronized long GetNextTriggerTime(Context ctx) {
+        long nextTriggerAtMillis = Long.MAX_VALUE;
+
+        if(!Open(ctx)) return nextTriggerAtMillis;
+
+        for(int slot : slotsById.values())
+            nextTriggerAtMillis = Math.min(nextTriggerAtMillis, triggerAtBySlot[slot]);
+
+        return nextTriggerAtMillis;
+    }
+
+    // Opens the schedule file and builds the index by streaming only the record headers
+    private static boolean Open(Context ctx) {
+        if(scheduleFile != null) return true;
+        if(ctx == null) return false;
+
+        try {
+            scheduleFile = new RandomAccessFile(new File(ctx.getFilesDir(), FILE_NAME), "rw");
+
+            slotCount = (int) (scheduleFile.length() / RECORD_SIZE);
+
+            for(int slot=0;slot < slotCount;++slot) {
+                scheduleFile.seek((long) slot * RECORD_SIZE);
+                scheduleFile.readFully(recordBytes, 0, HEADER_SIZE);
+
+                if(recordBytes[0] == STATE_USED) {
+                    slotsById.put(recordBuffer.getInt(4), slot);
+                    SetSlotTrigger(slot, recordBuffer.getLong(16));
+                } else {
+                    freeSlots.add(slot);
+                }
+            }
+        } catch (IOException e) {
+            Log.e("PicklePKG", "NotificationSchedule.Open(..) failed to open schedule - " + e);
+
+            Close();
+            return false;
+        }
+
+        return true;
+    }
+
+    // Closes the schedule file and forgets the index, the next call reopens the file and rebuilds the index from the record headers
+    static synchronized void Close() {
+        if(scheduleFile != null) {
+            try {
+                scheduleFile.close();
+            } catch (IOException closeException) {}
+        }
+
+        scheduleFile = null;
+        slotCount = 0;
+        slotsById.clear();
+        freeSlots.clear();
+    }
+
+    private static void SetSlotTrigger(int slot, long triggerAtMillis) {
+        if(slot >= triggerAtBySlot.length) {
+            long[] grownTriggers = new long[Math.max(triggerAtBySlot.length * 2, slot + 1)];
+            System.arraycopy(triggerAtBySlot, 0, grownTriggers, 0, triggerAtBySlot.length);
+            triggerAtBySlot = grownTriggers;
+        }
+
+        triggerAtBySlot[slot] = triggerAtMillis;
+    }
+
+    private static void FreeSlot(int slot) throws IOException {
+        scheduleFile.seek((long) slot * RECORD_SIZE);
+        scheduleFile.writeByte(STATE_FREE);
+
+        freeSlots.add(slot);
+    }
+
+    private static void WriteRecord(int slot, Entry entry) throws IOException {
+        recordBuffer.clear();
+        recordBuffer.put(STATE_USED);
+        recordBuffer.put((byte) (entry.removeWhenTapped ? 1 : 0));
+        recordBuffer.putShort((short) 0);
+        recordBuffer.putInt(entry.notificationId);
+        recordBuffer.putInt(entry.priority);
+        recordBuffer.putInt(entry.sendAfterSeconds);
+        recordBuffer.putLong(entry.triggerAtMillis);
+
+        // Short strings needed to deliver the notification go first, if the record is too small the body gets truncated
+        PutString(entry.channelId, 4, entry.notificationId);
+        PutString(entry.smallIconName, 3, entry.notificationId);
+        PutString(entry.largeIconName, 2, entry.notificationId);
+        PutString(entry.msgTitle, 1, entry.notificationId);
+        PutString(entry.msgBody, 0, entry.notificationId);
+
+        scheduleFile.seek((long) slot * RECORD_SIZE);
+        scheduleFile.write(recordBytes, 0, RECORD_SIZE);
+    }
+
+    private static Entry ReadRecord(int slot) throws IOException {
+        scheduleFile.seek((long) slot * RECORD_SIZE);
+        scheduleFile.readFully(recordBytes, 0, RECORD_SIZE);
+
+        recordBuffer.clear();
+        recordBuffer.position(HEADER_SIZE);
+
+        boolean removeWhenTapped = recordBytes[1] != 0;
+        int notificationId = recordBuffer.getInt(4);
+        int priority = recordBuffer.getInt(8);
+        int sendAfterSeconds = recordBuffer.getInt(12);
+        long triggerAtMillis = recordBuffer.getLong(16);
+
+        String channelId = GetString();
+        String smallIconName = GetString();
+        String largeIconName = GetString();
+        String msgTitle = GetString();
+        String msgBody = GetString();
+
+        return new Entry(notificationId, channelId, msgTitle, msgBody, sendAfterSeconds, smallIconName, largeIconName, removeWhenTapped, priority, triggerAtMillis);
+    }
+
+    // remainingStrings is how many strings still need writing after this one so their length prefixes always fit
+    private static void PutString(String value, int remainingStrings, int notificationId) {
+        byte[] bytes = (value != null ? value : "").getBytes(StandardCharsets.UTF_8);
+        int availableBytes = recordBuffer.remaining() - 2 - (remainingStrings * 2);
+        int length = bytes.length;
+
+        if(length > availableBytes) {
+            Log.w("PicklePKG", "NotificationSchedule notification " + notificationId + " text too long, truncating to fit the schedule record");
+
+            length = Math.max(availableBytes, 0);
+
+            // Don't cut a multi-byte UTF-8 character in half
+            while(length > 0 && (bytes[length] & 0xC0) == 0x80)
+                length--;
+        }
+
+        recordBuffer.putShort((short) length);
+        recordBuffer.put(bytes, 0, length);
+    }
+
+    private static String GetString() {
+        int length = recordBuffer.getShort() & 0xFFFF;
+        String value = new String(recordBytes, recordBuffer.position(), length, StandardCharsets.UTF_8);
+
+        recordBuffer.position(recordBuffer.position() + length);
+
+        return value;
+    }
+}
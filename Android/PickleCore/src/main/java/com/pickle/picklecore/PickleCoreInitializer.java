@@ -0,0 +1,27 @@
+package com.pickle.picklecore;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.startup.Initializer;
+
+import java.util.Collections;
+import java.util.List;
+
+// Optional androidx.startup entry point which starts PluginWarmup as the app process starts, before Unity has even loaded
+// Not registered by the plugin manifest, apps opt in by adding it to the InitializationProvider in their own manifest
+public class PickleCoreInitializer implements Initializer<Void> {
+
+    @NonNull
+    @Override
+    public Void create(@NonNull Context ctx) {
+        PluginWarmup.Start(ctx);
+        return null;
+    }
+
+    @NonNull
+    @Override
+    public List<Class<? extends Initializer<?>>> dependencies() {
+        return Collections.emptyList();
+    }
+}
@@ -0,0 +1,192 @@
+package com.pickle.picklecore;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.view.Choreographer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Shared threading for the whole plugin, one cached main thread Handler and one bounded background pool
+// for package manager, file IO and reflection work instead of every class creating its own Handlers and executors
+// Posts can be coalesced by key so a burst of redundant updates (e.g overlay text set several times a frame) only runs the latest
+// Note: ANRSupervisor keeps its own dedicated thread, a watchdog can't share a pool which might be busy when the main thread stalls
+public class PluginExecutors {
+
+    // Background work is short lived so a couple of threads is plenty, the queue bound stops runaway callers piling up work
+    private static final int BACKGROUND_THREAD_COUNT = 2;
+    private static final int BACKGROUND_QUEUE_CAPACITY = 256;
+
+    // Slot indexes of the array returned by GetMetrics()
+    public static final int METRIC_BACKGROUND_QUEUE_DEPTH = 0;
+    public static final int METRIC_BACKGROUND_ACTIVE = 1;
+    public static final int METRIC_BACKGROUND_COMPLETED = 2;
+    public static final int METRIC_BACKGROUND_AVG_WAIT_MICROS = 3;
+    public static final int METRIC_BACKGROUND_MAX_WAIT_MICROS = 4;
+    public static final int METRIC_BACKGROUND_AVG_RUN_MICROS = 5;
+    public static final int METRIC_BACKGROUND_MAX_RUN_MICROS = 6;
+    public static final int METRIC_BACKGROUND_REJECTED = 7;
+    public static final int METRIC_MAIN_PENDING = 8;
+    public static final int METRIC_MAIN_COMPLETED = 9;
+    public static final int METRIC_MAIN_AVG_WAIT_MICROS = 10;
+    public static final int METRIC_MAIN_MAX_WAIT_MICROS = 11;
+    public static final int METRIC_MAIN_COALESCED = 12;
+    public static final int METRIC_COUNT = 13;
+
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private static volatile Choreographer mainChoreographer;
+
+    // Declared before the pool as its rejection handler counts into them
+    private static final AtomicLong backgroundCompleted = new AtomicLong();
+    private static final AtomicLong backgroundTotalWaitNanos = new AtomicLong();
+    private static final AtomicLong backgroundMaxWaitNanos = new AtomicLong();
+    private static final AtomicLong backgroundTotalRunNanos = new AtomicLong();
+    private static final AtomicLong backgroundMaxRunNanos = new AtomicLong();
+    private static final AtomicLong backgroundRejected = new AtomicLong();
+
+    private static final AtomicInteger mainPending = new AtomicInteger();
+    private static final AtomicLong mainCompleted = new AtomicLong();
+    private static final AtomicLong mainTotalWaitNanos = new AtomicLong();
+    private static final AtomicLong mainMaxWaitNanos = new AtomicLong();
+    private static final AtomicLong mainCoalesced = new AtomicLong();
+
+    private static final AtomicInteger nextThreadNumber = new AtomicInteger(1);
+
+    private static final ThreadPoolExecutor backgroundPool = new ThreadPoolExecutor(BACKGROUND_THREAD_COUNT, BACKGROUND_THREAD_COUNT,
+            30L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(BACKGROUND_QUEUE_CAPACITY), runnable -> {
+                Thread thread = new Thread(() -> {
+                    android.os.Process.setThreadPriority(android.os.Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }, "PickleBackground-" + nextThreadNumber.getAndIncrement());
+
+                thread.setDaemon(true);
+                return thread;
+            }, (runnable, executor) -> {
+                // Work can't be silently dropped (e.g notification delivery must finish its goAsync) so run it on the caller instead
+                backgroundRejected.incrementAndGet();
+                Log.e("PicklePKG", "PluginExecutors background queue full, running task on the calling thread");
+                runnable.run();
+            });
+
+    static {
+        // Idle threads exit so the pool costs nothing when the plugin isn't doing background work
+        backgroundPool.allowCoreThreadTimeOut(true);
+    }
+
+    // Latest runnable for each coalescing key which hasn't been dispatched yet
+    private static final Map<Object, Runnable> coalescedRunnables = new ConcurrentHashMap<>();
+
+    public static Handler MainHandler() {
+        return mainHandler;
+    }
+
+    public static void PostToMain(Runnable runnable) {
+        long postedAtNanos = System.nanoTime();
+        mainPending.incrementAndGet();
+
+        mainHandler.post(() -> {
+            long waitNanos = System.nanoTime() - postedAtNanos;
+
+            mainPending.decrementAndGet();
+            mainCompleted.incrementAndGet();
+            mainTotalWaitNanos.addAndGet(waitNanos);
+            UpdateMax(mainMaxWaitNanos, waitNanos);
+
+            runnable.run();
+        });
+    }
+
+    // Only the latest runnable posted with the same key before the main thread gets to it is run
+    public static void PostToMainCoalesced(Object key, Runnable runnable) {
+        if(coalescedRunnables.put(key, runnable) != null) {
+            // A dispatch for this key is already queued and will pick up this runnable instead
+            mainCoalesced.incrementAndGet();
+            return;
+        }
+
+        PostToMain(() -> {
+            Runnable latestRunnable = coalescedRunnables.remove(key);
+
+            if(latestRunnable != null)
+                latestRunnable.run();
+        });
+    }
+
+    // Runs the callback on the main thread at the start of the next display frame, for work which should happen at most once per vsync
+    public static void PostFrameCallback(Choreographer.FrameCallback frameCallback) {
+        Choreographer choreographer = mainChoreographer;
+
+        if(choreographer != null) {
+            // postFrameCallback is thread safe once we have the main thread instance
+            choreographer.postFrameCallback(frameCallback);
+        } else {
+            // Choreographer.getInstance() is per thread so the first request fetches the main thread one
+            PostToMain(() -> {
+                mainChoreographer = Choreographer.getInstance();
+                mainChoreographer.postFrameCallback(frameCallback);
+            });
+        }
+    }
+
+    // Run on the background pool, exceptions are logged rather than killing the pool thread
+    public static void Execute(Runnable runnable) {
+        long queuedAtNanos = System.nanoTime();
+
+        backgroundPool.execute(() -> {
+            long startedAtNanos = System.nanoTime();
+            long waitNanos = startedAtNanos - queuedAtNanos;
+
+            backgroundTotalWaitNanos.addAndGet(waitNanos);
+            UpdateMax(backgroundMaxWaitNanos, waitNanos);
+
+            try {
+                runnable.run();
+            } catch (Exception e) {
+                Log.e("PicklePKG", "PluginExecutors background task threw - " + e);
+            } finally {
+                long runNanos = System.nanoTime() - startedAtNanos;
+
+                backgroundCompleted.incrementAndGet();
+                backgroundTotalRunNanos.addAndGet(runNanos);
+                UpdateMax(backgroundMaxRunNanos, runNanos);
+            }
+        });
+    }
+
+    // See the METRIC_* constants for the layout, durations are in microseconds
+    public static long[] GetMetrics() {
+        long[] metrics = new long[METRIC_COUNT];
+
+        long backgroundCount = backgroundCompleted.get();
+        long mainCount = mainCompleted.get();
+
+        metrics[METRIC_BACKGROUND_QUEUE_DEPTH] = backgroundPool.getQueue().size();
+        metrics[METRIC_BACKGROUND_ACTIVE] = backgroundPool.getActiveCount();
+        metrics[METRIC_BACKGROUND_COMPLETED] = backgroundCount;
+        metrics[METRIC_BACKGROUND_AVG_WAIT_MICROS] = backgroundCount > 0L ? backgroundTotalWaitNanos.get() / backgroundCount / 1000L : 0L;
+        metrics[METRIC_BACKGROUND_MAX_WAIT_MICROS] = backgroundMaxWaitNanos.get() / 1000L;
+        metrics[METRIC_BACKGROUND_AVG_RUN_MICROS] = backgroundCount > 0L ? backgroundTotalRunNanos.get() / backgroundCount / 1000L : 0L;
+        metrics[METRIC_BACKGROUND_MAX_RUN_MICROS] = backgroundMaxRunNanos.get() / 1000L;
+        metrics[METRIC_BACKGROUND_REJECTED] = backgroundRejected.get();
+        metrics[METRIC_MAIN_PENDING] = mainPending.get();
+        metrics[METRIC_MAIN_COMPLETED] = mainCount;
+        metrics[METRIC_MAIN_AVG_WAIT_MICROS] = mainCount > 0L ? mainTotalWaitNanos.get() / mainCount / 1000L : 0L;
+        metrics[METRIC_MAIN_MAX_WAIT_MICROS] = mainMaxWaitNanos.get() / 1000L;
+        metrics[METRIC_MAIN_COALESCED] = mainCoalesced.get();
+
+        return metrics;
+    }
+
+    private static void UpdateMax(AtomicLong max, long value) {
+        long currentMax = max.get();
+
+        while(value > currentMax && !max.compareAndSet(currentMax, value))
+            currentMax = max.get();
+    }
+}
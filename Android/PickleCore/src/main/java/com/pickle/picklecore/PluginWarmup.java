@@ -0,0 +1,141 @@
+package com.pickle.picklecore;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Fills the plugin caches on a background thread at app start, so the first calls from Unity while it loads its first scene
+// don't pay for reflection, package manager IPC, getprop forks and system service lookups on the main thread
+// Started from PickleCore.WarmUp() in Unity or automatically by PickleCoreInitializer if the app enables it with androidx.startup
+// Display geometry isn't included as it needs the activity window, it's computed lazily on the first query instead
+public class PluginWarmup {
+
+    public interface WarmupCallback {
+        // Called on a background thread once every subsystem is done (or by SetCallback(..) if it already finished)
+        // Durations are in microseconds in the same order as the names
+        void OnWarmupComplete(String[] subsystemNames, long[] subsystemMicroseconds);
+    }
+
+    private static final String[] SUBSYSTEM_NAMES = new String[]{ "NotchDetection", "AppMetadata", "InstalledPackages", "Vibration", "NotificationSchedule" };
+
+    private static final long[] subsystemMicroseconds = new long[SUBSYSTEM_NAMES.length];
+
+    private static FutureTask<Void> readyFuture;
+
+    // Taken (set to null) when notified so a callback set right as the warm-up finishes is only called once
+    private static final AtomicReference<WarmupCallback> pendingCallback = new AtomicReference<>();
+
+    // Starts the warm-up if it isn't already running or finished, the returned future completes once every subsystem is done
+    // Calling this again (e.g from Unity after the Initializer already ran) just returns the existing future
+    public static synchronized Future<Void> Start(Context ctx) {
+        if(readyFuture != null) return readyFuture;
+
+        if(ctx == null) {
+            Log.e("PicklePKG", "PluginWarmup.Start(..) ctx was null!");
+            return null;
+        }
+
+        Context appCtx = ctx.getApplicationContext() != null ? ctx.getApplicationContext() : ctx;
+
+        for(int i=0;i < subsystemMicroseconds.length;++i)
+            subsystemMicroseconds[i] = -1L;
+
+        readyFuture = new FutureTask<Void>(() -> {
+            WarmUp(appCtx);
+            return null;
+        }) {
+            @Override
+            protected void done() {
+                NotifyPendingCallback();
+            }
+        };
+
+        PluginExecutors.Execute(readyFuture);
+
+        return readyFuture;
+    }
+
+    // If the warm-up already finished the callback is invoked straight away on the calling thread
+    public static void SetCallback(WarmupCallback newCallback) {
+        pendingCallback.set(newCallback);
+
+        if(IsReady())
+            NotifyPendingCallback();
+    }
+
+    public static synchronized Future<Void> GetReadyFuture() {
+        return readyFuture;
+    }
+
+    public static synchronized boolean IsReady() {
+        return readyFuture != null && readyFuture.isDone();
+    }
+
+    // Blocks until the warm-up is done or the timeout passes, returns true if it finished (never call this on the main thread)
+    public static boolean AwaitReady(long timeoutMilliseconds) {
+        Future<Void> future = GetReadyFuture();
+
+        if(future == null) return false;
+
+        try {
+            future.get(timeoutMilliseconds, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    public static String[] GetSubsystemNames() {
+        return SUBSYSTEM_NAMES.clone();
+    }
+
+    // Microseconds each subsystem took to warm up, -1 if it hasn't finished yet
+    public static long[] GetSubsystemMicroseconds() {
+        synchronized (subsystemMicroseconds) {
+            return subsystemMicroseconds.clone();
+        }
+    }
+
+    private static void WarmUp(Context ctx) {
+        for(int i=0;i < SUBSYSTEM_NAMES.length;++i) {
+            long startNanos = System.nanoTime();
+
+            try {
+                WarmUpSubsystem(i, ctx);
+            } catch (Exception e) {
+                // A failed warm-up just means that subsystem falls back to initialising lazily
+                Log.e("PicklePKG", "PluginWarmup.WarmUp(..) " + SUBSYSTEM_NAMES[i] + " failed - " + e);
+            }
+
+            synchronized (subsystemMicroseconds) {
+                subsystemMicroseconds[i] = (System.nanoTime() - startNanos) / 1000L;
+            }
+        }
+    }
+
+    private static void WarmUpSubsystem(int index, Context ctx) {
+        switch(index) {
+            case 0: NotchDetection.GetNotchSize(ctx); break; // Vendor reflection and system property lookups
+            case 1: AppMetadata.Get(ctx); break; // Package manager IPC
+            case 2: InstalledPackages.AreInstalled(ctx, new String[0]); break; // Installed package snapshot
+            case 3: Vibration.InitVibrator(ctx); break; // Vibrator service lookup
+            case 4: NotificationSchedule.GetNextTriggerTime(ctx); break; // Schedule file index
+        }
+    }
+
+    private static void NotifyPendingCallback() {
+        WarmupCallback activeCallback = pendingCallback.getAndSet(null);
+
+        if(activeCallback == null) return;
+
+        try {
+            activeCallback.OnWarmupComplete(GetSubsystemNames(), GetSubsystemMicroseconds());
+        } catch (Exception e) {
+            Log.e("PicklePKG", "PluginWarmup callback threw - " + e);
+        }
+    }
+}
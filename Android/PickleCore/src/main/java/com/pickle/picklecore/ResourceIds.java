@@ -0,0 +1,72 @@
+package com.pickle.picklecore;
+
+import android.annotation.SuppressLint;
+import android.content.ComponentCallbacks;
+import android.content.Context;
+import android.content.res.Configuration;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Shared cache in front of Resources.getIdentifier(..) which is a slow reflective lookup by name
+// Every identifier lookup in the plugin goes through here, keyed by (package, type, name) and cleared on configuration changes
+// Lookups which found nothing (0) are cached too as most of the system resource probes don't exist on most devices
+public class ResourceIds {
+
+    private static final Map<String, Integer> identifiers = new ConcurrentHashMap<>();
+
+    private static final AtomicLong hitCount = new AtomicLong();
+    private static final AtomicLong missCount = new AtomicLong();
+
+    private static volatile boolean isConfigurationCallbackRegistered;
+
+    // Returns the resource id or 0 if the resource doesn't exist, same as Resources.getIdentifier(..)
+    @SuppressLint("DiscouragedApi")
+    public static int GetIdentifier(Context ctx, String name, String type, String packageName) {
+        if(ctx == null || name == null || name.isEmpty()) return 0;
+
+        RegisterConfigurationCallback(ctx);
+
+        String key = packageName + ":" + type + "/" + name;
+        Integer identifier = identifiers.get(key);
+
+        if(identifier != null) {
+            hitCount.incrementAndGet();
+            return identifier;
+        }
+
+        missCount.incrementAndGet();
+
+        identifier = ctx.getResources().getIdentifier(name, type, packageName);
+        identifiers.put(key, identifier);
+
+        return identifier;
+    }
+
+    // Returns {hits, misses} since the app started
+    public static long[] GetCacheStats() {
+        return new long[]{ hitCount.get(), missCount.get() };
+    }
+
+    public static void Clear() {
+        identifiers.clear();
+    }
+
+    private static void RegisterConfigurationCallback(Context ctx) {
+        if(isConfigurationCallbackRegistered) return;
+
+        synchronized (ResourceIds.class) {
+            if(isConfigurationCallbackRegistered) return;
+
+            Context appCtx = ctx.getApplicationContext() != null ? ctx.getApplicationContext() : ctx;
+
+            appCtx.registerComponentCallbacks(new ComponentCallbacks() {
+                @Override public void onConfigurationChanged(Configuration newConfig) { Clear(); }
+                @Override public void onLowMemory() {}
+            });
+
+            isConfigurationCallbackRegistered = true;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.pickle.picklecore;
+
+import android.app.Activity;
+import android.content.Context;
+import android.os.Handler;
+import android.util.Log;
+
+import java.lang.ref.WeakReference;
+
+// Pushes safe area changes (rotation, foldable posture, split-screen, nav bar toggles) to a registered callback
+// instead of Unity polling SystemInfo.GetSafeZone(..) every frame
+// Driven by the DisplayGeometrySnapshot invalidation hooks, a burst of insets/configuration changes is coalesced into
+// a single check and the callback is only fired when the safe zones actually differ from the last values sent
+public class SafeAreaListener {
+
+    public interface SafeAreaCallback {
+        // Called on the android main thread, zones are x, y, width, height (width and height are 0 if there's no plugin safe zone)
+        void OnSafeAreaChanged(int x, int y, int width, int height, int navbarX, int navbarY, int navbarWidth, int navbarHeight);
+    }
+
+    // Inset changes arrive in bursts while the window animates, wait for them to settle before comparing
+    private static final long COALESCE_DELAY_MS = 100L;
+
+    private static final Handler mainHandler = PluginExecutors.MainHandler();
+    private static final Runnable checkRunnable = SafeAreaListener::CheckForChanges;
+
+    private static volatile SafeAreaCallback callback;
+    private static WeakReference<Activity> listeningActivity = new WeakReference<>(null);
+    private static Context appCtx;
+
+    // Last values sent to the callback, safe zone followed by the navbar safe zone
+    private static final int[] lastSentZones = new int[8];
+    private static boolean hasSentZones;
+
+    public static void Register(Activity activity, Context ctx, SafeAreaCallback newCallback) {
+        if(activity == null || ctx == null || newCallback == null) {
+            Log.e("PicklePKG", "SafeAreaListener.Register(..) activity, ctx and callback must not be null!");
+            return;
+        }
+
+        mainHandler.post(() -> {
+            listeningActivity = new WeakReference<>(activity);
+            appCtx = ctx.getApplicationContext() != null ? ctx.getApplicationContext() : ctx;
+            hasSentZones = false;
+            callback = newCallback;
+
+            // Always send the current values straight away so the listener starts with a known state
+            CheckForChanges();
+        });
+    }
+
+    public static void Unregister() {
+        callback = null;
+        mainHandler.removeCallbacks(checkRunnable);
+    }
+
+    // Called whenever the display geometry snapshot is invalidated, restarts the coalescing delay
+    static void OnGeometryInvalidated() {
+        if(callback == null) return;
+
+        mainHandler.removeCallbacks(checkRunnable);
+        mainHandler.postDelayed(checkRunnable, COALESCE_DELAY_MS);
+    }
+
+    private static void CheckForChanges() {
+        SafeAreaCallback activeCallback = callback;
+        Activity activity = listeningActivity.get();
+
+        if(activeCallback == null || activity == null || activity.isFinishing() || activity.isDestroyed()) return;
+
+        DisplayGeometrySnapshot snapshot = DisplayGeometrySnapshot.Get(activity, appCtx);
+        int[] safeZone = snapshot.GetSafeZone(false);
+        int[] navbarSafeZone = snapshot.GetSafeZone(true);
+
+        boolean hasChanged = !hasSentZones;
+
+        for(int i=0;i < 4;++i) {
+            int safeZoneValue = safeZone.length == 4 ? safeZone[i] : 0;
+            int navbarSafeZoneValue = navbarSafeZone.length == 4 ? navbarSafeZone[i] : 0;
+
+            if(lastSentZones[i] != safeZoneValue || lastSentZones[i + 4] != navbarSafeZoneValue) {
+                lastSentZones[i] = safeZoneValue;
+                lastSentZones[i + 4] = navbarSafeZoneValue;
+                hasChanged = true;
+            }
+        }
+
+        if(!hasChanged) return;
+
+        hasSentZones = true;
+
+        try {
+            activeCallback.OnSafeAreaChanged(lastSentZones[0], lastSentZones[1], lastSentZones[2], lastSentZones[3],
+                    lastSentZones[4], lastSentZones[5], lastSentZones[6], lastSentZones[7]);
+        } catch (Exception e) {
+            Log.e("PicklePKG", "SafeAreaListener.CheckForChanges() callback threw - " + e);
+        }
+    }
+}
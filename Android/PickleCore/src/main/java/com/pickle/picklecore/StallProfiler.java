@@ -0,0 +1,126 @@
+package com.pickle.picklecore;
+
+// Samples a stalled thread's stack into a fixed size ring buffer preallocated up front
+// Identical stacks are merged by a hash of their frames so a thread stuck in one place only takes a single slot with a hit count
+// Used by ANRSupervisor so we learn what the main thread was doing during a stall rather than just that it stalled
+public class StallProfiler {
+
+    // Frames beyond this depth are left out of the report, the top of the stack is what matters
+    private static final int MAX_REPORT_FRAMES = 24;
+
+    private final long[] stackHashes;
+    private final int[] hitCounts;
+    private final long[] firstSeenMs;
+    private final long[] lastSeenMs;
+    private final StackTraceElement[][] stacks;
+
+    private int nextSlot;
+    private int usedSlots;
+    private int sampleCount;
+
+    public StallProfiler(int capacity) {
+        capacity = Math.max(capacity, 1);
+
+        stackHashes = new long[capacity];
+        hitCounts = new int[capacity];
+        firstSeenMs = new long[capacity];
+        lastSeenMs = new long[capacity];
+        stacks = new StackTraceElement[capacity][];
+    }
+
+    // Forget all samples, called when a new stall starts so the report only covers the latest stall
+    public synchronized void Reset() {
+        for(int i=0;i < stacks.length;++i)
+            stacks[i] = null;
+
+        nextSlot = 0;
+        usedSlots = 0;
+        sampleCount = 0;
+    }
+
+    public void Sample(Thread thread, long stallMs) {
+        Sample(thread.getStackTrace(), stallMs);
+    }
+
+    synchronized void Sample(StackTraceElement[] stack, long stallMs) {
+        long hash = HashStack(stack);
+
+        sampleCount++;
+
+        for(int i=0;i < usedSlots;++i) {
+            if(stackHashes[i] == hash) {
+                hitCounts[i]++;
+                lastSeenMs[i] = stallMs;
+                return;
+            }
+        }
+
+        // New unique stack, overwrite the oldest slot once the ring is full
+        int slot = nextSlot;
+
+        stackHashes[slot] = hash;
+        hitCounts[slot] = 1;
+        firstSeenMs[slot] = stallMs;
+        lastSeenMs[slot] = stallMs;
+        stacks[slot] = stack;
+
+        nextSlot = (nextSlot + 1) % stacks.length;
+        if(usedSlots < stacks.length) usedSlots++;
+    }
+
+    public synchronized int GetSampleCount() {
+        return sampleCount;
+    }
+
+    // Compact text report of the unique stacks ordered by how often they were sampled, empty if nothing was sampled
+    // Format: a summary line then for each stack "#<hash> x<hits> <firstSeen>-<lastSeen>ms" followed by its frames
+    public synchronized String GetReport() {
+        if(usedSlots == 0) return "";
+
+        // Order slots by hit count, there's only a handful so an insertion sort is plenty
+        int[] order = new int[usedSlots];
+
+        for(int i=0;i < usedSlots;++i) {
+            int j = i;
+
+            while(j > 0 && hitCounts[order[j - 1]] < hitCounts[i]) {
+                order[j] = order[j - 1];
+                j--;
+            }
+
+            order[j] = i;
+        }
+
+        StringBuilder report = new StringBuilder();
+        report.append("samples=").append(sampleCount).append(" unique=").append(usedSlots).append('\n');
+
+        for(int slot : order) {
+            report.append('#').append(Long.toHexString(stackHashes[slot]))
+                    .append(" x").append(hitCounts[slot])
+                    .append(' ').append(firstSeenMs[slot]).append('-').append(lastSeenMs[slot]).append("ms\n");
+
+            StackTraceElement[] stack = stacks[slot];
+            int frameCount = Math.min(stack.length, MAX_REPORT_FRAMES);
+
+            for(int i=0;i < frameCount;++i)
+                report.append("  ").append(stack[i]).append('\n');
+
+            if(stack.length > frameCount)
+                report.append("  ...").append(stack.length - frameCount).append(" more\n");
+        }
+
+        return report.toString();
+    }
+
+    private static long HashStack(StackTraceElement[] stack) {
+        long hash = 1125899906842597L;
+
+        for(StackTraceElement frame : stack) {
+            hash = 31L * hash + frame.getClassName().hashCode();
+            hash = 31L * hash + frame.getMethodName().hashCode();
+            hash = 31L * hash + frame.getLineNumber();
+        }
+
+        return hash;
+    }
+}
@@ -1,6 +1,5 @@
 package com.pickle.picklecore;
 
-import android.annotation.SuppressLint;
 import android.app.Activity;
 import android.content.ActivityNotFoundException;
 import android.content.Context;
@@ -13,7 +12,6 @@ import android.net.Uri;
 import android.os.Build;
 import android.os.SystemClock;
 import android.provider.Settings;
-import android.text.TextUtils;
 import android.util.DisplayMetrics;
 import android.util.Log;
 import android.view.Display;
@@ -25,10 +23,28 @@ import android.view.Surface;
 import android.view.WindowInsets;
 import android.view.WindowMetrics;
 
-import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 public class SystemInfo {
 
+    // Packed display geometry layout used by FillDisplayGeometry(..) and GetDisplayGeometry(..)
+    // Every slot is 4 bytes in native byte order, the safe zones are x, y, width, height and are only valid if their flag is set
+    public static final int GEOMETRY_GENERATION = 0;
+    public static final int GEOMETRY_WIDTH = 1;
+    public static final int GEOMETRY_HEIGHT = 2;
+    public static final int GEOMETRY_DENSITY = 3;
+    public static final int GEOMETRY_FLAGS = 4;
+    public static final int GEOMETRY_SAFE_ZONE = 5;
+    public static final int GEOMETRY_NAVBAR_SAFE_ZONE = 9;
+    public static final int GEOMETRY_XDPI = 13; // float
+    public static final int GEOMETRY_YDPI = 14; // float
+    public static final int GEOMETRY_SLOT_COUNT = 15;
+
+    public static final int GEOMETRY_FLAG_HAS_NOTCH = 1;
+    public static final int GEOMETRY_FLAG_SAFE_ZONE = 2;
+    public static final int GEOMETRY_FLAG_NAVBAR_SAFE_ZONE = 4;
+
     public static int GetAPILevel() {
         return Build.VERSION.SDK_INT;
     }
@@ -104,6 +120,15 @@ public class SystemInfo {
     public static int GetDensity(Context ctx) {
         if(ctx == null) return -1;
 
+        DisplayGeometrySnapshot snapshot = DisplayGeometrySnapshot.GetIfValid();
+
+        if(snapshot != null)
+            return snapshot.density;
+
+        return ComputeDensity(ctx);
+    }
+
+    static int ComputeDensity(Context ctx) {
         DisplayMetrics displayMetrics = GetDisplayMetrics(ctx);
 
         if (displayMetrics != null) {
@@ -117,6 +142,15 @@ public class SystemInfo {
     public static float GetXDPI(Context ctx) {
         if(ctx == null) return -1;
 
+        DisplayGeometrySnapshot snapshot = DisplayGeometrySnapshot.GetIfValid();
+
+        if(snapshot != null)
+            return snapshot.xdpi;
+
+        return ComputeXDPI(ctx);
+    }
+
+    static float ComputeXDPI(Context ctx) {
         DisplayMetrics displayMetrics = GetDisplayMetrics(ctx);
 
         if (displayMetrics != null) {
@@ -130,6 +164,15 @@ public class SystemInfo {
     public static float GetYDPI(Context ctx) {
         if(ctx == null) return -1;
 
+        DisplayGeometrySnapshot snapshot = DisplayGeometrySnapshot.GetIfValid();
+
+        if(snapshot != null)
+            return snapshot.ydpi;
+
+        return ComputeYDPI(ctx);
+    }
+
+    static float ComputeYDPI(Context ctx) {
         DisplayMetrics displayMetrics = GetDisplayMetrics(ctx);
 
         if (displayMetrics != null) {
@@ -146,62 +189,30 @@ public class SystemInfo {
     public static boolean HasNotchCutout(Activity activity, Context ctx) {
         if(ctx == null || activity == null) return false;
 
+        return DisplayGeometrySnapshot.Get(activity, ctx).hasNotchCutout;
+    }
+
+    static boolean ComputeHasNotchCutout(Activity activity, Context ctx) {
         // API 28+ has standardised notch support
         if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.P) {
-            DisplayCutout displayCutout = activity.getWindow().getDecorView().getRootWindowInsets().getDisplayCutout();
+            WindowInsets windowInsets = activity.getWindow().getDecorView().getRootWindowInsets();
 
-            if(displayCutout != null)
+            // Root insets are null until the decor view is attached, DisplayGeometrySnapshot stays dirty in that case so this is asked again
+            if(windowInsets != null && windowInsets.getDisplayCutout() != null)
                 return true;
         }
 
-        ClassLoader classLoader = ctx.getClassLoader();
-
-        // Huawei display cutout https://developer.huawei.com/consumer/cn/devservice/doc/50114
-        try {
-            Class<?> hwNotchSizeUtil = classLoader.loadClass("com.huawei.android.util.HwNotchSizeUtil");
-            if(hwNotchSizeUtil != null) {
-                Method hasNotchInScreen = hwNotchSizeUtil.getMethod("hasNotchInScreen");
-                if(hasNotchInScreen != null)
-                    return (boolean) hasNotchInScreen.invoke(hwNotchSizeUtil);
-            }
-        } catch(Exception e){}
-
-        // Oppo display cutout https://open.oppomobile.com/wiki/doc#id=10159
-        if(ctx.getPackageManager().hasSystemFeature("com.oppo.feature.screen.heteromorphism"))
-            return true;
-
-        // Vivo display cutout https://dev.vivo.com.cn/documentCenter/doc/145
-        try {
-            @SuppressLint("PrivateApi") Class ftFeature = classLoader.loadClass("android.util.FtFeature");
-            Method[] methods = ftFeature.getDeclaredMethods();
-            for(Method method: methods){
-                if(method != null && method.getName().equalsIgnoreCase("isFeatureSupport")){
-                    return (boolean) method.invoke(ftFeature, 0x00000020); // 0x00000020 is the screen notch feature
-                }
-            }
-        } catch(Exception e){}
-
-        // Xiaomi display cutout https://dev.mi.com/console/doc/detail?pId=1293 https://dev.mi.com/console/doc/detail?pId=1341
-        if(SystemProperties.getProperty("ro.miui.notch").equals("1"))
-            return true;
-
-        // Samsung basically had 1 device which wasn't on Android P with a notch/hole punch, the Galaxy A8s (SM-68870)
-        // Documentation for how the hole punch is defined is here http://support-cn.samsung.com/Upload/DeveloperChina/DeveloperChinaFile/201812121519497015B9B23C0D7.pdf
-        try {
-            Resources res = ctx.getResources();
-            int resourceId = res.getIdentifier("config_mainBuiltInDisplayCutout", "string", "android");
-            String spec = resourceId > 0 ? res.getString(resourceId) : null;
-            if (spec != null && !TextUtils.isEmpty(spec))
-                return true;
-        } catch (Exception e){}
-
-        // If we got this far and didn't hit any notch detections then assume we don't have one
-        return false;
+        // Pre android 9 devices used manufacturer specific notch implementations, these are probed once and cached
+        return NotchDetection.HasNotch(ctx);
     }
 
     public static int GetWidth(Activity activity, Context ctx){
         if(ctx == null || activity == null) return 0;
 
+        return DisplayGeometrySnapshot.Get(activity, ctx).width;
+    }
+
+    static int ComputeWidth(Activity activity){
         // API 30+ wants to use the new getDisplay method and windowMetrics for screen size
         if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.R){
             WindowMetrics windowMetrics = activity.getWindowManager().getCurrentWindowMetrics();
@@ -222,6 +233,10 @@ public class SystemInfo {
     public static int GetHeight(Activity activity, Context ctx){
         if(ctx == null || activity == null) return 0;
 
+        return DisplayGeometrySnapshot.Get(activity, ctx).height;
+    }
+
+    static int ComputeHeight(Activity activity){
         // API 30+ wants to use the new getDisplay method and windowMetrics for screen size
         if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.R){
             WindowMetrics windowMetrics = activity.getWindowManager().getCurrentWindowMetrics();
@@ -239,9 +254,14 @@ public class SystemInfo {
         }
     }
 
+    // Note: The returned array is shared with the cached snapshot, callers must not modify it
     public static int[] GetSafeZone(Activity activity, Context ctx, boolean navbarSafeZone){
         if(ctx == null || activity == null) return new int[0];
 
+        return DisplayGeometrySnapshot.Get(activity, ctx).GetSafeZone(navbarSafeZone);
+    }
+
+    static int[] ComputeSafeZone(Activity activity, Context ctx, boolean navbarSafeZone){
         // Get the screen width/height so we can return a safe zone similar to Unity's safe zone
         DisplayMetrics displayMetrics = new DisplayMetrics();
         Display display;
@@ -283,7 +303,7 @@ public class SystemInfo {
                 // If we don't have a physical home button then we must have an on-screen nav bar
                 if (!hasPhysicalHomeKey) {
                     Resources resources = ctx.getResources();
-                    @SuppressLint("InternalInsetResource") int navBarResId = resources.getIdentifier("navigation_bar_height", "dimen", "android");
+                    int navBarResId = ResourceIds.GetIdentifier(ctx, "navigation_bar_height", "dimen", "android");
 
                     if (navBarResId > 0)
                         navSize = navbarSafeZone ? resources.getDimensionPixelSize(navBarResId) : 0;
@@ -331,87 +351,9 @@ public class SystemInfo {
             }
         }
 
-        ClassLoader classLoader = ctx.getClassLoader();
-
-        // Huawei display cutout https://developer.huawei.com/consumer/cn/devservice/doc/50114
-        try {
-            Class<?> hwNotchSizeUtil = classLoader.loadClass("com.huawei.android.util.HwNotchSizeUtil");
-            if(hwNotchSizeUtil != null) {
-                Method getNotchSize = hwNotchSizeUtil.getMethod("getNotchSize");
-
-                int[] size = (int[]) getNotchSize.invoke(hwNotchSizeUtil);
-
-                if (size.length >= 2 && size[1] > 0)
-                    notchSize = size[1];
-            }
-        } catch(Exception e){}
-
-        // Oppo display cutout https://open.oppomobile.com/wiki/doc#id=10159
-        String oppoNotchProperty = SystemProperties.getProperty("ro.oppo.screen.heteromorphism");
-        String[] splitOppoNotchProperty = oppoNotchProperty.split("[,:]");
-        int[] oppoNotchPropertyValues = new int[splitOppoNotchProperty.length];
-
-        try {
-            for(int i=0;i < splitOppoNotchProperty.length;++i)
-                oppoNotchPropertyValues[i] = Integer.parseInt(splitOppoNotchProperty[i]);
-        } catch(NumberFormatException e){
-            oppoNotchPropertyValues = null;
-        }
-
-        if(oppoNotchPropertyValues != null && oppoNotchPropertyValues.length == 4){
-            // The array is notch distance from left/top in order of: left, top, right, bottom
-            if(oppoNotchPropertyValues[3] > 0)
-                notchSize = oppoNotchPropertyValues[3];
-        }
-
-        // Vivo display cutout https://dev.vivo.com.cn/documentCenter/doc/103
-        try {
-            @SuppressLint("PrivateApi") Class ftFeature = classLoader.loadClass("android.util.FtFeature");
-            Method[] methods = ftFeature.getDeclaredMethods();
-            for(Method method: methods){
-                if(method != null && method.getName().equalsIgnoreCase("isFeatureSupport")){
-                    if ((boolean) method.invoke(ftFeature, 0x00000020)){
-                        // Vivo doesn't directly have any way of getting any info about the notch size..
-                        // from their documentation though it seems to always be 32dp
-                        float dpi = GetDensity(ctx);
-                        if(dpi <= 0) dpi = 160f; // Fallback to the android baseline dpi if we failed to get dpi
-
-                        notchSize = (int) Math.ceil(32f * (dpi / 160f));
-                    }
-                }
-            }
-        } catch(Exception e){}
-
-        // Xiaomi display cutout https://dev.mi.com/console/doc/detail?pId=1293 https://dev.mi.com/console/doc/detail?pId=1341
-        if(SystemProperties.getProperty("ro.miui.notch").equals("1")){
-            Resources res = ctx.getResources();
-            int notchHeightResId = res.getIdentifier("notch_height", "dimen", "android");
-
-            if(notchHeightResId > 0) {
-                int xiaomiNotchPixelHeight = res.getDimensionPixelSize(notchHeightResId);
-
-                if(xiaomiNotchPixelHeight > 0)
-                    notchSize = xiaomiNotchPixelHeight;
-            }
-        }
-
-        // Samsung basically had 1 device which wasn't on Android P with a notch/hole punch, the Galaxy A8s (SM-68870)
-        // Documentation for how the hole punch is defined is here http://support-cn.samsung.com/Upload/DeveloperChina/DeveloperChinaFile/201812121519497015B9B23C0D7.pdf
-        try {
-            Resources res = ctx.getResources();
-            int resourceId = res.getIdentifier("config_mainBuiltInDisplayCutout", "string", "android");
-            String spec = resourceId > 0 ? res.getString(resourceId) : null;
-            if (spec != null && !TextUtils.isEmpty(spec)){
-                @SuppressLint("InternalInsetResource") int statusBarResourceId = res.getIdentifier("status_bar_height", "dimen", "android");
-
-                if(statusBarResourceId > 0){
-                    int samsungNotchPixelHeight = res.getDimensionPixelSize(statusBarResourceId);
-
-                    if(samsungNotchPixelHeight > 0)
-                        notchSize = samsungNotchPixelHeight;
-                }
-            }
-        } catch (Exception e){}
+        // Pre android 9 devices used manufacturer specific notch implementations, the size is probed once and cached
+        // so only the rotation math below needs redoing when the screen rotates
+        notchSize = NotchDetection.GetNotchSize(ctx);
 
         if(notchSize > 0) {
             // Note: Screen height and width will auto adjust with orientation
@@ -437,6 +379,54 @@ public class SystemInfo {
         return new int[0];
     }
 
+    // Writes the whole display geometry block into a caller provided direct buffer (at least GEOMETRY_SLOT_COUNT * 4 bytes)
+    // This lets Unity refresh everything with a single JNI call and read the values straight out of its own native memory
+    public static void FillDisplayGeometry(Activity activity, Context ctx, ByteBuffer out) {
+        if(ctx == null || activity == null || out == null) return;
+
+        if(out.capacity() < GEOMETRY_SLOT_COUNT * 4) {
+            Log.e("PicklePKG", "SystemInfo.FillDisplayGeometry(..) buffer too small! Needs " + (GEOMETRY_SLOT_COUNT * 4) + " bytes");
+            return;
+        }
+
+        DisplayGeometrySnapshot snapshot = DisplayGeometrySnapshot.Get(activity, ctx);
+        int[] safeZone = snapshot.GetSafeZone(false);
+        int[] navbarSafeZone = snapshot.GetSafeZone(true);
+
+        int flags = 0;
+        if(snapshot.hasNotchCutout) flags |= GEOMETRY_FLAG_HAS_NOTCH;
+        if(safeZone.length == 4) flags |= GEOMETRY_FLAG_SAFE_ZONE;
+        if(navbarSafeZone.length == 4) flags |= GEOMETRY_FLAG_NAVBAR_SAFE_ZONE;
+
+        out.order(ByteOrder.nativeOrder());
+        out.putInt(GEOMETRY_GENERATION * 4, snapshot.generation);
+        out.putInt(GEOMETRY_WIDTH * 4, snapshot.width);
+        out.putInt(GEOMETRY_HEIGHT * 4, snapshot.height);
+        out.putInt(GEOMETRY_DENSITY * 4, snapshot.density);
+        out.putInt(GEOMETRY_FLAGS * 4, flags);
+
+        for(int i=0;i < 4;++i) {
+            out.putInt((GEOMETRY_SAFE_ZONE + i) * 4, safeZone.length == 4 ? safeZone[i] : 0);
+            out.putInt((GEOMETRY_NAVBAR_SAFE_ZONE + i) * 4, navbarSafeZone.length == 4 ? navbarSafeZone[i] : 0);
+        }
+
+        out.putFloat(GEOMETRY_XDPI * 4, snapshot.xdpi);
+        out.putFloat(GEOMETRY_YDPI * 4, snapshot.ydpi);
+    }
+
+    // Fallback for callers which can't share a direct buffer, floats are stored as their raw int bits (Float.floatToRawIntBits)
+    public static int[] GetDisplayGeometry(Activity activity, Context ctx) {
+        if(ctx == null || activity == null) return new int[0];
+
+        ByteBuffer buffer = ByteBuffer.allocate(GEOMETRY_SLOT_COUNT * 4);
+        FillDisplayGeometry(activity, ctx, buffer);
+
+        int[] geometry = new int[GEOMETRY_SLOT_COUNT];
+        buffer.asIntBuffer().get(geometry);
+
+        return geometry;
+    }
+
     public static void OpenSettingsApp(Activity activity, Context ctx) {
         if(activity == null) return;
 
@@ -1,36 +1,136 @@
 package com.pickle.picklecore;
 
+import android.annotation.SuppressLint;
+import android.util.Log;
+
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class SystemProperties {
 
-    private static String GETPROP_EXECUTABLE_PATH = "/system/bin/getprop";
+    // A source system properties can be read from, backends are tried in order until one returns a value
+    public interface PropertyBackend {
+        // Return the property value ("" if not set) or throw if this backend can't be used
+        String get(String propName) throws Exception;
+    }
 
-    public static String getProperty(String propName) {
-        Process process = null;
-        BufferedReader bufferedReader = null;
-
-        try {
-            process = new ProcessBuilder().command(GETPROP_EXECUTABLE_PATH, propName).redirectErrorStream(true).start();
-            bufferedReader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-            String line = bufferedReader.readLine();
-            if (line == null){
-                line = ""; //prop not set
-            }
-            return line;
-        } catch (Exception e) {
-            return "";
-        } finally{
-            if (bufferedReader != null){
+    // Reads properties in-process through the hidden android.os.SystemProperties.get(String) method
+    public static class ReflectionBackend implements PropertyBackend {
+        // Volatile as the same backend instance is shared by every thread reading properties
+        private volatile Method getMethod;
+        private volatile boolean isUnavailable;
+
+        @SuppressLint("PrivateApi")
+        @Override public String get(String propName) throws Exception {
+            if(isUnavailable) throw new IllegalStateException("android.os.SystemProperties not accessible");
+
+            if(getMethod == null) {
                 try {
-                    bufferedReader.close();
-                } catch (IOException e) {}
+                    getMethod = Class.forName("android.os.SystemProperties").getMethod("get", String.class);
+                } catch (Exception e) {
+                    // Hidden API restrictions or a stripped ROM, don't bother retrying the lookup every call
+                    isUnavailable = true;
+                    throw e;
+                }
             }
-            if (process != null){
-                process.destroy();
+
+            String value = (String) getMethod.invoke(null, propName);
+
+            return value != null ? value : "";
+        }
+    }
+
+    // Forks the getprop executable, this is slow (a process spawn per call) so it's only used as a fallback
+    public static class GetpropBackend implements PropertyBackend {
+        private static final String GETPROP_EXECUTABLE_PATH = "/system/bin/getprop";
+
+        @Override public String get(String propName) throws Exception {
+            Process process = null;
+            BufferedReader bufferedReader = null;
+
+            try {
+                process = new ProcessBuilder().command(GETPROP_EXECUTABLE_PATH, propName).redirectErrorStream(true).start();
+                bufferedReader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+                String line = bufferedReader.readLine();
+                if (line == null){
+                    line = ""; //prop not set
+                }
+                return line;
+            } finally{
+                if (bufferedReader != null){
+                    try {
+                        bufferedReader.close();
+                    } catch (IOException e) {}
+                }
+                if (process != null){
+                    process.destroy();
+                }
             }
         }
     }
+
+    private static volatile PropertyBackend[] backends = new PropertyBackend[]{ new ReflectionBackend(), new GetpropBackend() };
+
+    // The properties we read are almost all read-only ro.* values so they're safe to cache for the life of the process
+    private static final Map<String, String> propertyCache = new ConcurrentHashMap<>();
+
+    public static String getProperty(String propName) {
+        if(propName == null || propName.isEmpty()) return "";
+
+        String cachedValue = propertyCache.get(propName);
+
+        if(cachedValue != null)
+            return cachedValue;
+
+        String value = readProperty(propName);
+
+        if(value != null) {
+            propertyCache.put(propName, value);
+            return value;
+        }
+
+        // Every backend failed, return empty without caching so a later call can try again
+        return "";
+    }
+
+    // Read multiple properties in one call, values are returned in the same order as the requested names
+    public static String[] getProperties(String... propNames) {
+        if(propNames == null) return new String[0];
+
+        String[] values = new String[propNames.length];
+
+        for(int i=0;i < propNames.length;++i)
+            values[i] = getProperty(propNames[i]);
+
+        return values;
+    }
+
+    public static void clearCache() {
+        propertyCache.clear();
+    }
+
+    // Replace the backend chain (e.g to swap in a fake backend), also clears the cache as values may now differ
+    static void setBackends(PropertyBackend... newBackends) {
+        backends = newBackends != null ? newBackends : new PropertyBackend[0];
+        clearCache();
+    }
+
+    private static String readProperty(String propName) {
+        for(PropertyBackend backend : backends) {
+            try {
+                String value = backend.get(propName);
+
+                if(value != null)
+                    return value;
+            } catch (Exception e) {
+                Log.w("PicklePKG", "SystemProperties.getProperty(..) " + backend.getClass().getSimpleName() + " failed to read " + propName + " - " + e);
+            }
+        }
+
+        return null;
+    }
 }
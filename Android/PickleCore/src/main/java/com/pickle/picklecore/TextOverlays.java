@@ -0,0 +1,393 @@
+package com.pickle.picklecore;
+
+import android.app.Activity;
+import android.content.Context;
+import android.graphics.Color;
+import android.graphics.PixelFormat;
+import android.util.Log;
+import android.util.SparseArray;
+import android.view.Choreographer;
+import android.view.Gravity;
+import android.view.View;
+import android.view.WindowManager;
+import android.widget.TextView;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Several independently positioned text panels (e.g a perf HUD plus a debug log line) keyed by an overlay id
+// Calls only record the latest state of each panel, every change made before the next vsync is applied in a single main thread pass
+// Hidden panels stay attached to the window as GONE and removed panels are kept for reuse by the next new one,
+// so showing and hiding doesn't pay for addView/removeViewImmediate window IPC and a fresh layout each time
+public class TextOverlays {
+
+    private static final int STATE_HIDDEN = 0;
+    private static final int STATE_SHOWN = 1;
+    private static final int STATE_REMOVED = 2;
+
+    // Removed panel views kept attached (as GONE) for reuse, more than this are actually removed from the window
+    private static final int MAX_RECYCLED_VIEWS = 4;
+
+    private static class Overlay {
+        // Latest requested state, guarded by overlayLock
+        int state = STATE_HIDDEN;
+        int gravity = Gravity.BOTTOM | Gravity.CENTER_HORIZONTAL;
+        int xOffset = 0, yOffset = 250;
+        int fontSize = 14, backgroundAlpha = 160;
+        String text = "";
+        boolean isDirty;
+
+        // What the view currently shows, main thread only
+        TextView view;
+        int appliedGravity, appliedXOffset, appliedYOffset, appliedFontSize = -1, appliedBackgroundAlpha = -1;
+        String appliedText;
+    }
+
+    private static final Object overlayLock = new Object();
+    private static final SparseArray<Overlay> overlays = new SparseArray<>();
+    private static ArrayList<Overlay> dirtyOverlays = new ArrayList<>();
+    private static WeakReference<Activity> pendingActivity = new WeakReference<>(null);
+
+    private static final AtomicBoolean isFrameScheduled = new AtomicBoolean();
+    private static final Choreographer.FrameCallback applyFrameCallback = frameTimeNanos -> ApplyPendingChanges();
+
+    // Main thread only, every panel view belongs to the window of the attached activity
+    private static ArrayList<Overlay> applyingOverlays = new ArrayList<>();
+    private static final ArrayList<Overlay> attachedOverlays = new ArrayList<>();
+    private static final ArrayList<TextView> recycledViews = new ArrayList<>();
+    private static WeakReference<Activity> attachedActivity = new WeakReference<>(null);
+    private static WindowManager windowManager;
+
+    // Sets where and how a panel is drawn, gravity is an android.view.Gravity value and the offsets are pixels from that edge
+    // Can be called before or after the panel is shown, panels which are never configured use the same layout as Toasts.ShowTextOverlay(..)
+    public static void Configure(int overlayId, int gravity, int xOffset, int yOffset, int fontSize, int backgroundAlpha) {
+        synchronized (overlayLock) {
+            Overlay overlay = GetOrCreateOverlay(overlayId);
+
+            overlay.gravity = gravity;
+            overlay.xOffset = xOffset;
+            overlay.yOffset = yOffset;
+            overlay.fontSize = fontSize;
+            overlay.backgroundAlpha = backgroundAlpha;
+
+            MarkDirty(overlay);
+        }
+
+        ScheduleApply();
+    }
+
+    // Shows the panel with the text, text identical to what the panel already shows doesn't touch the view
+    public static void Show(Activity activity, int overlayId, String text) {
+        if(activity == null) return;
+
+        synchronized (overlayLock) {
+            Overlay overlay = GetOrCreateOverlay(overlayId);
+
+            overlay.state = STATE_SHOWN;
+            overlay.text = text != null ? text : "";
+
+            if(pendingActivity.get() != activity)
+                pendingActivity = new WeakReference<>(activity);
+
+            MarkDirty(overlay);
+        }
+
+        ScheduleApply();
+    }
+
+    // Hides the panel but keeps its view and configuration so showing it again is cheap
+    public static void Hide(int overlayId) {
+        synchronized (overlayLock) {
+            Overlay overlay = overlays.get(overlayId);
+
+            if(overlay == null || overlay.state == STATE_HIDDEN) return;
+
+            overlay.state = STATE_HIDDEN;
+            MarkDirty(overlay);
+        }
+
+        ScheduleApply();
+    }
+
+    // Forgets the panel and its configuration, its view is kept for reuse by the next new panel
+    public static void Remove(int overlayId) {
+        synchronized (overlayLock) {
+            Overlay overlay = overlays.get(overlayId);
+
+            if(overlay == null) return;
+
+            overlays.remove(overlayId);
+            overlay.state = STATE_REMOVED;
+            MarkDirty(overlay);
+        }
+
+        ScheduleApply();
+    }
+
+    public static void RemoveAll() {
+        synchronized (overlayLock) {
+            for(int i=0;i < overlays.size();++i) {
+                Overlay overlay = overlays.valueAt(i);
+
+                overlay.state = STATE_REMOVED;
+                MarkDirty(overlay);
+            }
+
+            overlays.clear();
+        }
+
+        ScheduleApply();
+    }
+
+    // Must hold overlayLock
+    private static Overlay GetOrCreateOverlay(int overlayId) {
+        Overlay overlay = overlays.get(overlayId);
+
+        if(overlay == null) {
+            overlay = new Overlay();
+            overlays.put(overlayId, overlay);
+        }
+
+        return overlay;
+    }
+
+    // Must hold overlayLock
+    private static void MarkDirty(Overlay overlay) {
+        if(overlay.isDirty) return;
+
+        overlay.isDirty = true;
+        dirtyOverlays.add(overlay);
+    }
+
+    private static void ScheduleApply() {
+        // One frame callback at a time, changes made meanwhile are picked up by the already scheduled one
+        if(!isFrameScheduled.compareAndSet(false, true)) return;
+
+        PluginExecutors.PostFrameCallback(applyFrameCallback);
+    }
+
+    // Runs on the main thread once per vsync at most, applies every panel changed since the last pass
+    private static void ApplyPendingChanges() {
+        // Cleared first so changes made while this runs schedule another pass
+        isFrameScheduled.set(false);
+
+        Activity activity;
+
+        synchronized (overlayLock) {
+            // Swap the lists so callers can keep marking panels dirty while this pass runs
+            ArrayList<Overlay> changedOverlays = dirtyOverlays;
+            dirtyOverlays = applyingOverlays;
+            applyingOverlays = changedOverlays;
+
+            activity = pendingActivity.get();
+        }
+
+        if(activity != null && (activity.isFinishing() || activity.isDestroyed()))
+            activity = null;
+
+        if(activity != attachedActivity.get())
+            AttachToActivity(activity);
+
+        for(int i=0;i < applyingOverlays.size();++i) {
+            Overlay overlay = applyingOverlays.get(i);
+
+            int state, gravity, xOffset, yOffset, fontSize, backgroundAlpha;
+            String text;
+
+            synchronized (overlayLock) {
+                overlay.isDirty = false;
+
+                state = overlay.state;
+                gravity = overlay.gravity;
+                xOffset = overlay.xOffset;
+                yOffset = overlay.yOffset;
+                fontSize = overlay.fontSize;
+                backgroundAlpha = overlay.backgroundAlpha;
+                text = overlay.text;
+            }
+
+            try {
+                switch(state) {
+                    case STATE_SHOWN:
+                        if(windowManager != null)
+                            ApplyShown(activity, overlay, gravity, xOffset, yOffset, fontSize, backgroundAlpha, text);
+                        break;
+
+                    case STATE_HIDDEN:
+                        if(overlay.view != null && overlay.view.getVisibility() != View.GONE)
+                            overlay.view.setVisibility(View.GONE);
+                        break;
+
+                    case STATE_REMOVED:
+                        RecycleView(overlay);
+                        break;
+                }
+            } catch (Exception e) {
+                Log.e("PicklePKG", "TextOverlays.ApplyPendingChanges() failed to update overlay - " + e);
+            }
+        }
+
+        applyingOverlays.clear();
+    }
+
+    private static void ApplyShown(Activity activity, Overlay overlay, int gravity, int xOffset, int yOffset, int fontSize, int backgroundAlpha, String text) {
+        boolean isLayoutChanged = gravity != overlay.appliedGravity || xOffset != overlay.appliedXOffset || yOffset != overlay.appliedYOffset;
+
+        if(overlay.view == null) {
+            overlay.view = ObtainView(activity, gravity, xOffset, yOffset);
+
+            if(overlay.view == null) return;
+
+            attachedOverlays.add(overlay);
+            isLayoutChanged = false;
+        } else if(isLayoutChanged) {
+            UpdateLayout(overlay.view, gravity, xOffset, yOffset);
+        }
+
+        overlay.appliedGravity = gravity;
+        overlay.appliedXOffset = xOffset;
+        overlay.appliedYOffset = yOffset;
+
+        if(fontSize != overlay.appliedFontSize) {
+            overlay.view.setTextSize(fontSize);
+            overlay.appliedFontSize = fontSize;
+        }
+
+        if(backgroundAlpha != overlay.appliedBackgroundAlpha) {
+            overlay.view.setBackgroundColor(Color.argb(backgroundAlpha, 0, 0, 0));
+            overlay.appliedBackgroundAlpha = backgroundAlpha;
+        }
+
+        if(!text.equals(overlay.appliedText)) {
+            overlay.view.setText(text);
+            overlay.appliedText = text;
+        }
+
+        if(overlay.view.getVisibility() != View.VISIBLE)
+            overlay.view.setVisibility(View.VISIBLE);
+    }
+
+    // Reuses a recycled view (one updateViewLayout call) or adds a new one to the window
+    private static TextView ObtainView(Activity activity, int gravity, int xOffset, int yOffset) {
+        if(!recycledViews.isEmpty()) {
+            TextView recycledView = recycledViews.remove(recycledViews.size() - 1);
+            UpdateLayout(recycledView, gravity, xOffset, yOffset);
+            return recycledView;
+        }
+
+        TextView textView = CreateOverlayView(activity);
+        WindowManager.LayoutParams params = CreateOverlayLayoutParams(activity, gravity, xOffset, yOffset);
+
+        try {
+            windowManager.addView(textView, params);
+        } catch (Exception e) {
+            Log.e("PicklePKG", "TextOverlays.ObtainView(..) failed to add view - " + e);
+            return null;
+        }
+
+        return textView;
+    }
+
+    // Shared with the single Toasts text overlay so both kinds of overlay look and behave the same
+    static TextView CreateOverlayView(Activity activity) {
+        TextView textView = new TextView(activity);
+        textView.setTextColor(Color.WHITE);
+        textView.setPadding(25, 15, 25, 15);
+        textView.setGravity(Gravity.CENTER);
+
+        return textView;
+    }
+
+    // Overlays never take focus or touches so input always reaches the game underneath
+    static WindowManager.LayoutParams CreateOverlayLayoutParams(Activity activity, int gravity, int xOffset, int yOffset) {
+        WindowManager.LayoutParams params = new WindowManager.LayoutParams();
+        params.width = WindowManager.LayoutParams.WRAP_CONTENT;
+        params.height = WindowManager.LayoutParams.WRAP_CONTENT;
+        params.format = PixelFormat.TRANSLUCENT;
+        params.flags = WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE
+                | WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE
+                | WindowManager.LayoutParams.FLAG_LAYOUT_IN_SCREEN
+                | WindowManager.LayoutParams.FLAG_NOT_TOUCH_MODAL;
+        params.type = WindowManager.LayoutParams.TYPE_APPLICATION_PANEL;
+        params.token = activity.getWindow().getDecorView().getWindowToken();
+        params.gravity = gravity;
+        params.x = xOffset;
+        params.y = yOffset;
+
+        return params;
+    }
+
+    private static void UpdateLayout(TextView view, int gravity, int xOffset, int yOffset) {
+        WindowManager.LayoutParams params = (WindowManager.LayoutParams) view.getLayoutParams();
+
+        params.gravity = gravity;
+        params.x = xOffset;
+        params.y = yOffset;
+
+        windowManager.updateViewLayout(view, params);
+    }
+
+    private static void RecycleView(Overlay overlay) {
+        TextView view = overlay.view;
+
+        if(view == null) return;
+
+        overlay.view = null;
+        attachedOverlays.remove(overlay);
+
+        if(recycledViews.size() < MAX_RECYCLED_VIEWS) {
+            view.setVisibility(View.GONE);
+            recycledViews.add(view);
+        } else if(windowManager != null) {
+            windowManager.removeViewImmediate(view);
+        }
+    }
+
+    // Views can't move between windows so switching activity drops every view from the old one
+    private static void AttachToActivity(Activity activity) {
+        for(int i=0;i < attachedOverlays.size();++i) {
+            Overlay overlay = attachedOverlays.get(i);
+
+            RemoveFromWindow(overlay.view);
+            overlay.view = null;
+            overlay.appliedText = null;
+            overlay.appliedFontSize = -1;
+            overlay.appliedBackgroundAlpha = -1;
+        }
+
+        for(int i=0;i < recycledViews.size();++i)
+            RemoveFromWindow(recycledViews.get(i));
+
+        attachedOverlays.clear();
+        recycledViews.clear();
+
+        attachedActivity = new WeakReference<>(activity);
+        windowManager = activity != null ? (WindowManager) activity.getSystemService(Context.WINDOW_SERVICE) : null;
+
+        if(activity == null) return;
+
+        // Panels still meant to be showing are recreated on the new window
+        synchronized (overlayLock) {
+            for(int i=0;i < overlays.size();++i) {
+                Overlay overlay = overlays.valueAt(i);
+
+                if(overlay.state == STATE_SHOWN)
+                    MarkDirty(overlay);
+            }
+        }
+
+        ScheduleApply();
+    }
+
+    private static void RemoveFromWindow(TextView view) {
+        if(view == null || windowManager == null) return;
+
+        try {
+            windowManager.removeViewImmediate(view);
+        } catch (Exception e) {
+            // The old window is usually already gone along with its views
+            Log.e("PicklePKG", "TextOverlays.RemoveFromWindow(..) failed to remove view - " + e);
+        }
+    }
+}
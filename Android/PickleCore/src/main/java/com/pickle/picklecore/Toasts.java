@@ -3,34 +3,48 @@ package com.pickle.picklecore;
 import android.app.Activity;
 import android.content.Context;
 import android.graphics.Color;
-import android.graphics.PixelFormat;
-import android.os.Handler;
-import android.os.Looper;
 import android.util.Log;
+import android.view.Choreographer;
 import android.view.Gravity;
 import android.view.View;
 import android.view.WindowManager;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 public class Toasts {
 
+    // Show and hide share a key so only the latest overlay request made before the main thread gets to it is applied
+    private static final Object TEXT_OVERLAY_POST_KEY = new Object();
+
     private static Toast activeToast = null;
     private static TextView activeTextView = null;
 
-    public static void ShowToast(final Context ctx, final String msg, final boolean longDuration) {
-        if(ctx == null) return;
+    // Frame coalesced overlay text (see SetTextOverlayText(..)), callers write the latest text into the pending buffer and a single
+    // Choreographer frame callback applies it at most once per vsync, the pending and displayed buffers are swapped rather than
+    // copied as TextView.setText(char[], ..) keeps a reference to the array it's given
+    private static final Object overlayTextLock = new Object();
+    private static char[] pendingOverlayChars = new char[64];
+    private static char[] displayedOverlayChars = new char[64];
+    private static int pendingOverlayLength;
+    private static int displayedOverlayLength = -1; // -1 when the overlay isn't showing the displayed buffer
+    private static boolean hasPendingOverlayText;
+    private static int overlayRequestVersion; // Bumped by every show, set and hide so a posted show/hide can tell if it's been superseded
+    private static int pendingOverlayFontSize, pendingOverlayBackgroundAlpha;
+    private static WeakReference<Activity> pendingOverlayActivity = new WeakReference<>(null);
 
-        // Get an instance of the main looper thread allowing us to use it for popping toast on the main thread
-        Handler mainLooper = new Handler(Looper.getMainLooper());
+    private static final AtomicBoolean isOverlayFrameScheduled = new AtomicBoolean();
+    private static final Choreographer.FrameCallback overlayFrameCallback = frameTimeNanos -> ApplyPendingOverlayText();
 
-        if(mainLooper == null) {
-            Log.e("PicklePKG", "Toasts.ShowToast() mainLooper was null");
-            return;
-        }
+    public static void ShowToast(final Context ctx, final String msg, final boolean longDuration) {
+        if(ctx == null) return;
 
-        // Post a message to the mainLooper requesting it to pop new toast
-        mainLooper.post(() -> {
+        // Post a message to the main thread requesting it to pop new toast
+        PluginExecutors.PostToMain(() -> {
             if(activeToast != null){
                 // Already an active toast, update it rather than creating new
                 activeToast.setText(msg);
@@ -48,16 +62,8 @@ public class Toasts {
         // If there are no active toasts, return early
         if (activeToast == null) return;
 
-        // Get an instance of the main looper thread, allowing us to interact with the current active toast
-        Handler mainLooper = new Handler(Looper.getMainLooper());
-
-        if(mainLooper == null) {
-            Log.e("PicklePKG", "Toasts.HideToast() mainLooper was null");
-            return;
-        }
-
-        // Post a message to the mainLoop requesting the active toast to be cancelled
-        mainLooper.post(() -> {
+        // Post a message to the main thread requesting the active toast to be cancelled
+        PluginExecutors.PostToMain(() -> {
             // Make sure activeToast wasn't disposed between initial call and main thread dispatch
             if(activeToast != null) {
                 // Force cancel the current active toast message
@@ -70,65 +76,124 @@ public class Toasts {
     public static void ShowTextOverlay(final Activity activity, final String msg, final int fontSize, final int backgroundAlpha) {
         if(activity == null) return;
 
-        // Get an instance of the main looper thread allowing us to use it for popping textview on the main thread
-        Handler mainLooper = new Handler(Looper.getMainLooper());
+        final int requestVersion;
 
-        if(mainLooper == null) {
-            Log.e("PicklePKG", "Toasts.ShowTextOverlay() mainLooper was null");
-            return;
+        synchronized (overlayTextLock) {
+            // Drop older frame coalesced text so the frame callback can't overwrite this with it afterwards
+            hasPendingOverlayText = false;
+            requestVersion = ++overlayRequestVersion;
         }
 
-        // Post a message to the mainLooper requesting it to pop new textview
-        mainLooper.post(() -> {
-            if(activeTextView == null){
-                activeTextView = new TextView(activity);
-                activeTextView.setTextSize(fontSize);
-                activeTextView.setBackgroundColor(Color.argb(backgroundAlpha, 0, 0, 0));
-                activeTextView.setTextColor(Color.WHITE);
-                activeTextView.setPadding(25, 15, 25, 15);
-                activeTextView.setGravity(Gravity.CENTER);
-
-                WindowManager.LayoutParams params = new WindowManager.LayoutParams();
-                params.width = WindowManager.LayoutParams.WRAP_CONTENT;
-                params.height = WindowManager.LayoutParams.WRAP_CONTENT;
-                params.format = PixelFormat.TRANSLUCENT;
-                params.flags = WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE
-                        | WindowManager.LayoutParams.FLAG_LAYOUT_IN_SCREEN
-                        | WindowManager.LayoutParams.FLAG_NOT_TOUCH_MODAL;
-                params.type = WindowManager.LayoutParams.TYPE_APPLICATION_PANEL;
-                params.token = activity.getWindow().getDecorView().getWindowToken();
-
-                params.gravity = Gravity.BOTTOM | Gravity.CENTER_HORIZONTAL;
-                params.y = 250;
-
-                WindowManager wm = (WindowManager) activity.getSystemService(Context.WINDOW_SERVICE);
-                wm.addView(activeTextView, params);
+        // Post a message to the main thread requesting it to pop new textview
+        PluginExecutors.PostToMainCoalesced(TEXT_OVERLAY_POST_KEY, () -> {
+            synchronized (overlayTextLock) {
+                // Text set after this call is newer and will be applied by the frame callback instead
+                if(requestVersion != overlayRequestVersion) return;
+
+                ForgetDisplayedOverlayText();
             }
 
+            if(activeTextView == null && !CreateTextOverlay(activity, fontSize, backgroundAlpha)) return;
+
             activeTextView.setText(msg);
         });
     }
 
-    public static void HideTextOverlay(final Activity activity) {
-        // If there are no active text views, return early
-        if (activeTextView == null || activity == null) return;
+    // Frame coalesced version of ShowTextOverlay(..) for text updated every frame (e.g an FPS or debug HUD)
+    // Only the latest text set before the next vsync is applied and text identical to what's showing is skipped entirely
+    // fontSize and backgroundAlpha are only used when the overlay isn't already showing
+    public static void SetTextOverlayText(Activity activity, String msg, int fontSize, int backgroundAlpha) {
+        if(activity == null || msg == null) return;
+
+        boolean shouldSchedule;
+
+        synchronized (overlayTextLock) {
+            int length = msg.length();
+
+            msg.getChars(0, length, GetPendingOverlayBuffer(length), 0);
+            shouldSchedule = CommitPendingOverlayText(activity, length, fontSize, backgroundAlpha);
+        }
+
+        if(shouldSchedule)
+            ScheduleOverlayFrame();
+    }
 
-        // Get an instance of the main looper thread, allowing us to interact with the current active toast
-        Handler mainLooper = new Handler(Looper.getMainLooper());
+    // Same as SetTextOverlayText(..) but copies from a char array so the caller can reuse one buffer instead of building a String per frame
+    public static void SetTextOverlayChars(Activity activity, char[] chars, int length, int fontSize, int backgroundAlpha) {
+        if(activity == null || chars == null) return;
 
-        if(mainLooper == null) {
-            Log.e("PicklePKG", "Toasts.HideTextOverlay() mainLooper was null");
+        if(length < 0 || length > chars.length) {
+            Log.e("PicklePKG", "Toasts.SetTextOverlayChars(..) length " + length + " out of range!");
             return;
         }
 
-        // Post a message to the mainLoop requesting the active textview to be cancelled
-        mainLooper.post(() -> {
+        boolean shouldSchedule;
+
+        synchronized (overlayTextLock) {
+            System.arraycopy(chars, 0, GetPendingOverlayBuffer(length), 0, length);
+            shouldSchedule = CommitPendingOverlayText(activity, length, fontSize, backgroundAlpha);
+        }
+
+        if(shouldSchedule)
+            ScheduleOverlayFrame();
+    }
+
+    // Same as SetTextOverlayChars(..) but reads UTF-16 chars in native byte order from a direct buffer shared with Unity
+    // so nothing is allocated on either side of the JNI call
+    public static void SetTextOverlayBuffer(Activity activity, ByteBuffer chars, int length, int fontSize, int backgroundAlpha) {
+        if(activity == null || chars == null) return;
+
+        if(length < 0 || length * 2 > chars.capacity()) {
+            Log.e("PicklePKG", "Toasts.SetTextOverlayBuffer(..) length " + length + " out of range!");
+            return;
+        }
+
+        boolean shouldSchedule;
+
+        synchronized (overlayTextLock) {
+            char[] buffer = GetPendingOverlayBuffer(length);
+
+            chars.order(ByteOrder.nativeOrder());
+
+            for(int i=0;i < length;++i)
+                buffer[i] = chars.getChar(i * 2);
+
+            shouldSchedule = CommitPendingOverlayText(activity, length, fontSize, backgroundAlpha);
+        }
+
+        if(shouldSchedule)
+            ScheduleOverlayFrame();
+    }
+
+    public static void HideTextOverlay(final Activity activity) {
+        final int requestVersion;
+
+        // Drop any frame coalesced text which hasn't been applied yet so it doesn't bring the overlay back
+        synchronized (overlayTextLock) {
+            hasPendingOverlayText = false;
+            requestVersion = ++overlayRequestVersion;
+        }
+
+        // If there are no active text views, return early
+        if (activeTextView == null || activity == null) return;
+
+        // Post a message to the main thread requesting the active textview to be cancelled
+        PluginExecutors.PostToMainCoalesced(TEXT_OVERLAY_POST_KEY, () -> {
+            synchronized (overlayTextLock) {
+                // Text set after this call is newer so the overlay should stay up showing it
+                if(requestVersion != overlayRequestVersion) return;
+            }
+
             // Make sure activeTextView wasn't disposed between initial call and main thread dispatch
             if(activeTextView != null) {
                 try {
                     WindowManager wm = (WindowManager) activity.getSystemService(Context.WINDOW_SERVICE);
                     wm.removeViewImmediate(activeTextView);
                     activeTextView = null;
+
+                    synchronized (overlayTextLock) {
+                        ForgetDisplayedOverlayText();
+                    }
                 } catch (Exception e) {
                     Log.e("PicklePKG", "Toasts.HideTextOverlay() failed to remove view - " + e);
                 }
@@ -136,4 +201,123 @@ public class Toasts {
         });
     }
 
+    // Must be called on the main thread, returns false if the overlay couldn't be added
+    private static boolean CreateTextOverlay(Activity activity, int fontSize, int backgroundAlpha) {
+        TextView textView = TextOverlays.CreateOverlayView(activity);
+        textView.setTextSize(fontSize);
+        textView.setBackgroundColor(Color.argb(backgroundAlpha, 0, 0, 0));
+
+        WindowManager.LayoutParams params = TextOverlays.CreateOverlayLayoutParams(activity, Gravity.BOTTOM | Gravity.CENTER_HORIZONTAL, 0, 250);
+
+        try {
+            WindowManager wm = (WindowManager) activity.getSystemService(Context.WINDOW_SERVICE);
+            wm.addView(textView, params);
+        } catch (Exception e) {
+            Log.e("PicklePKG", "Toasts.CreateTextOverlay(..) failed to add view - " + e);
+            return false;
+        }
+
+        activeTextView = textView;
+        return true;
+    }
+
+    // Must hold overlayTextLock, grows the pending buffer if needed (the old contents don't need keeping)
+    static char[] GetPendingOverlayBuffer(int length) {
+        if(pendingOverlayChars.length < length)
+            pendingOverlayChars = new char[Math.max(length, pendingOverlayChars.length * 2)];
+
+        return pendingOverlayChars;
+    }
+
+    // Must hold overlayTextLock, returns true if a frame callback needs scheduling to apply the pending text
+    static boolean CommitPendingOverlayText(Activity activity, int length, int fontSize, int backgroundAlpha) {
+        ++overlayRequestVersion;
+
+        pendingOverlayLength = length;
+        pendingOverlayFontSize = fontSize;
+        pendingOverlayBackgroundAlpha = backgroundAlpha;
+
+        if(pendingOverlayActivity.get() != activity)
+            pendingOverlayActivity = new WeakReference<>(activity);
+
+        // Identical to what's already showing, drop anything older still pending as this is now the latest text
+        if(IsSameText(pendingOverlayChars, length, displayedOverlayChars, displayedOverlayLength)) {
+            hasPendingOverlayText = false;
+            return false;
+        }
+
+        hasPendingOverlayText = true;
+        return true;
+    }
+
+    // Must hold overlayTextLock, makes the pending text the displayed text, returns false if it's already what's displayed
+    static boolean SwapOverlayBuffers() {
+        if(IsSameText(pendingOverlayChars, pendingOverlayLength, displayedOverlayChars, displayedOverlayLength)) return false;
+
+        char[] previousDisplayedChars = displayedOverlayChars;
+        displayedOverlayChars = pendingOverlayChars;
+        displayedOverlayLength = pendingOverlayLength;
+        pendingOverlayChars = previousDisplayedChars;
+
+        return true;
+    }
+
+    // Must hold overlayTextLock, the view no longer shows the displayed buffer so the next frame coalesced update must always be applied
+    static void ForgetDisplayedOverlayText() {
+        displayedOverlayLength = -1;
+    }
+
+    private static void ScheduleOverlayFrame() {
+        // One frame callback at a time, text set meanwhile is picked up by the already scheduled one
+        if(!isOverlayFrameScheduled.compareAndSet(false, true)) return;
+
+        PluginExecutors.PostFrameCallback(overlayFrameCallback);
+    }
+
+    // Runs on the main thread once per vsync at most
+    private static void ApplyPendingOverlayText() {
+        // Cleared first so text set while this runs schedules another frame
+        isOverlayFrameScheduled.set(false);
+
+        Activity activity;
+        int fontSize, backgroundAlpha;
+
+        synchronized (overlayTextLock) {
+            if(!hasPendingOverlayText) return;
+
+            hasPendingOverlayText = false;
+
+            activity = pendingOverlayActivity.get();
+            fontSize = pendingOverlayFontSize;
+            backgroundAlpha = pendingOverlayBackgroundAlpha;
+
+            if(activity == null || activity.isFinishing() || activity.isDestroyed()) return;
+
+            if(activeTextView == null)
+                ForgetDisplayedOverlayText();
+
+            if(!SwapOverlayBuffers()) return;
+        }
+
+        if(activeTextView == null && !CreateTextOverlay(activity, fontSize, backgroundAlpha)) {
+            synchronized (overlayTextLock) {
+                ForgetDisplayedOverlayText();
+            }
+            return;
+        }
+
+        // Only the main thread swaps the buffers so the displayed one can't change before the view takes it
+        activeTextView.setText(displayedOverlayChars, 0, displayedOverlayLength);
+    }
+
+    static boolean IsSameText(char[] a, int aLength, char[] b, int bLength) {
+        if(aLength != bLength || aLength < 0) return false;
+
+        for(int i=0;i < aLength;++i) {
+            if(a[i] != b[i]) return false;
+        }
+
+        return true;
+    }
+
 }
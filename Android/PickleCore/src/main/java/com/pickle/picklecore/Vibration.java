@@ -1,79 +1,73 @@
 package com.pickle.picklecore;
 
 import android.Manifest;
-import android.annotation.SuppressLint;
 import android.app.Activity;
+import android.app.Application;
 import android.content.Context;
 import android.content.pm.PackageManager;
 import android.os.Build;
+import android.os.Bundle;
 import android.os.VibrationAttributes;
 import android.os.VibrationEffect;
 import android.os.Vibrator;
 import android.os.VibratorManager;
 import android.util.Log;
 import android.view.HapticFeedbackConstants;
-import android.view.InputDevice;
 import android.view.View;
 import android.view.Window;
 
+import androidx.annotation.RequiresApi;
 import androidx.core.content.ContextCompat;
 
-public class Vibration {
-
-    public static Vibrator vibrator;
-    public static boolean isVibratorDisabled;
-    public static boolean isVibratorInitialised;
+import java.lang.ref.WeakReference;
 
-    // Left motor: Low frequency (intense crashes/explosions)
-    // Right motor: High frequency (subtle taps and haptic effects)
-    @SuppressLint("MissingPermission")
-    public static void DoControllerVibrate(boolean lowFrequency, long milliseconds, int strength){
-        // API 31+ required for controller vibration as the vibration manager is required
-        if(Build.VERSION.SDK_INT < Build.VERSION_CODES.S) return;
+public class Vibration {
 
-        if(strength < 0 || strength > 255) return;
+    public static volatile Vibrator vibrator;
+    public static volatile boolean isVibratorDisabled;
+    public static volatile boolean isVibratorInitialised;
 
-        for(int deviceId : InputDevice.getDeviceIds()) {
-            InputDevice inputDevice = InputDevice.getDevice(deviceId);
+    // Attributes are immutable so one instance is shared by every vibration instead of building them per call
+    private static VibrationAttributes mediaAttributes;
 
-            if (inputDevice == null) {
-                Log.e("PicklePKG", "Vibration.DoControllerVibrate(..) no input device found with deviceId: " + deviceId);
-                return;
-            }
+    // The view haptic feedback is performed on and the VIBRATE permission result, resolved once per activity rather than
+    // walking the view tree and checking the permission on every tap, dropped when the activity is destroyed or recreated
+    private static class HapticTarget {
+        final WeakReference<Activity> activity;
+        final WeakReference<View> rootView;
+        final boolean hasVibratePermission;
 
-            VibratorManager vibratorManager = inputDevice.getVibratorManager();
-
-            if (vibratorManager == null) {
-                Log.e("PicklePKG", "Vibration.DoControllerVibrate(..) null vibratorManager on deviceId: " + deviceId);
-                return;
-            }
+        HapticTarget(Activity inActivity, View inRootView, boolean inHasVibratePermission) {
+            activity = new WeakReference<>(inActivity);
+            rootView = new WeakReference<>(inRootView);
+            hasVibratePermission = inHasVibratePermission;
+        }
+    }
 
-            int[] vibratorIds = vibratorManager.getVibratorIds();
-            int vibratorCount = vibratorIds.length; // 0 on devices which don't support vibration
-            int targetVibratorIndex = lowFrequency ? 0 : 1;
+    private static volatile HapticTarget hapticTarget;
+    private static boolean isLifecycleCallbackRegistered;
 
-            // Game controllers typically have 2 vibration motors one for low frequency and one for high frequency
-            if (vibratorCount > 0) {
-                // If the controller doesn't have a highFrequency motor just use the lowFrequency motor at min strength
-                if(vibratorCount <= targetVibratorIndex){
-                    targetVibratorIndex = 0;
-                    strength = 1;
-                }
+    // Left motor: Low frequency (intense crashes/explosions)
+    // Right motor: High frequency (subtle taps and haptic effects)
+    // Vibrates every connected controller, see ControllerHaptics for the cached controller registry
+    public static void DoControllerVibrate(boolean lowFrequency, long milliseconds, int strength){
+        ControllerHaptics.Vibrate(null, ControllerHaptics.ALL_CONTROLLERS, lowFrequency, milliseconds, strength);
+    }
 
-                Vibrator vibrator = vibratorManager.getVibrator(vibratorIds[targetVibratorIndex]);
+    // Same as above but the context lets the registry track controllers connecting and disconnecting, controllerId is an
+    // input device id from ControllerHaptics.GetControllerIds() or ControllerHaptics.ALL_CONTROLLERS
+    public static void DoControllerVibrate(Context ctx, int controllerId, boolean lowFrequency, long milliseconds, int strength){
+        ControllerHaptics.Vibrate(ctx, controllerId, lowFrequency, milliseconds, strength);
+    }
 
-                if (vibrator == null) {
-                    Log.e("PicklePKG", "Vibration.DoControllerVibrate(..) null vibrator index " + targetVibratorIndex + " on deviceId: " + deviceId);
-                    return;
-                }
+    // Drives both controller motors together in one CombinedVibration per controller, strengths are 0 to 255 (0 leaves that motor off)
+    public static void DoControllerRumble(Context ctx, int controllerId, int lowFrequencyStrength, int highFrequencyStrength, long milliseconds){
+        ControllerHaptics.Rumble(ctx, controllerId, lowFrequencyStrength, highFrequencyStrength, milliseconds);
+    }
 
-                if (strength <= 0 || milliseconds <= 0L) {
-                    vibrator.cancel();
-                } else {
-                    vibrator.vibrate(VibrationEffect.createOneShot(milliseconds, strength));
-                }
-            }
-        }
+    // Stops both motors with a single call per controller
+    public static void StopControllerVibrate(Context ctx, int controllerId){
+        ControllerHaptics.Stop(ctx, controllerId);
     }
 
     // Java doesn't support parameter defaults so this override is required
@@ -85,36 +79,13 @@ public class Vibration {
     public static void DoHapticFeedback(Activity activity, Context ctx, int strength, boolean ignoreDeviceHapticSetting) {
         if(ctx == null || activity == null || activity.isFinishing() || activity.isDestroyed()) return;
 
-        View rootView = null;
+        HapticTarget target = GetHapticTarget(activity, ctx);
 
-        try {
-            Window activityWindow = activity.getWindow();
-            if (activityWindow != null) {
-                View activityView = activityWindow.getDecorView();
+        if (target == null) return;
 
-                if(activityView != null) {
-                    rootView = activityView.findViewById(android.R.id.content);
-                } else {
-                    Log.e("PicklePKG", "Vibration.DoHapticFeedback(..) null activityView!");
-                    return;
-                }
-            } else {
-                Log.e("PicklePKG", "Vibration.DoHapticFeedback(..) null activityWindow!");
-                return;
-            }
-        } catch (Exception e) {
-            Log.e("PicklePKG", "Vibration.DoHapticFeedback(..) failed to get rootView - " + e);
-            return;
-        }
+        View rootView = target.rootView.get();
 
-        if (rootView == null) {
-            Log.e("PicklePKG", "Vibration.DoHapticFeedback(..) rootView was null!");
-            return;
-        }
-
-        // If haptic feedback isn't already enabled, enable it now
-        if (!rootView.isHapticFeedbackEnabled())
-            rootView.setHapticFeedbackEnabled(true);
+        if (rootView == null) return;
 
         int type = HapticFeedbackConstants.CLOCK_TICK;
 
@@ -128,7 +99,7 @@ public class Vibration {
         if(ignoreDeviceHapticSetting) {
             // Android API 33+ does not support the flag to ignore device haptic settings, if we already have the VIBRATE permission just use the vibrator for haptics
             if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
-                if (ContextCompat.checkSelfPermission(ctx, Manifest.permission.VIBRATE) == PackageManager.PERMISSION_GRANTED) {
+                if (target.hasVibratePermission) {
                     long vibrationMilliseconds = 1L;
 
                     // Convert strength to millisecond durations
@@ -151,6 +122,81 @@ public class Vibration {
         }
     }
 
+    private static HapticTarget GetHapticTarget(Activity activity, Context ctx) {
+        HapticTarget target = hapticTarget;
+
+        if (target != null && target.activity.get() == activity && target.rootView.get() != null)
+            return target;
+
+        return ResolveHapticTarget(activity, ctx);
+    }
+
+    private static synchronized HapticTarget ResolveHapticTarget(Activity activity, Context ctx) {
+        // Another thread may have resolved it while this one waited
+        if (hapticTarget != null && hapticTarget.activity.get() == activity && hapticTarget.rootView.get() != null)
+            return hapticTarget;
+
+        View rootView = null;
+
+        try {
+            Window activityWindow = activity.getWindow();
+            if (activityWindow != null) {
+                View activityView = activityWindow.getDecorView();
+
+                if(activityView != null) {
+                    rootView = activityView.findViewById(android.R.id.content);
+                } else {
+                    Log.e("PicklePKG", "Vibration.ResolveHapticTarget(..) null activityView!");
+                    return null;
+                }
+            } else {
+                Log.e("PicklePKG", "Vibration.ResolveHapticTarget(..) null activityWindow!");
+                return null;
+            }
+        } catch (Exception e) {
+            Log.e("PicklePKG", "Vibration.ResolveHapticTarget(..) failed to get rootView - " + e);
+            return null;
+        }
+
+        if (rootView == null) {
+            Log.e("PicklePKG", "Vibration.ResolveHapticTarget(..) rootView was null!");
+            return null;
+        }
+
+        // If haptic feedback isn't already enabled, enable it now
+        if (!rootView.isHapticFeedbackEnabled())
+            rootView.setHapticFeedbackEnabled(true);
+
+        RegisterLifecycleCallback(activity);
+
+        hapticTarget = new HapticTarget(activity, rootView, ContextCompat.checkSelfPermission(ctx, Manifest.permission.VIBRATE) == PackageManager.PERMISSION_GRANTED);
+        return hapticTarget;
+    }
+
+    // Must hold the Vibration class lock, clears the cached haptic target when its activity is destroyed (including recreation)
+    private static void RegisterLifecycleCallback(Activity activity) {
+        if (isLifecycleCallbackRegistered || activity.getApplication() == null) return;
+
+        activity.getApplication().registerActivityLifecycleCallbacks(new Application.ActivityLifecycleCallbacks() {
+            @Override public void onActivityCreated(Activity createdActivity, Bundle savedInstanceState) {}
+            @Override public void onActivityStarted(Activity startedActivity) {}
+            @Override public void onActivityResumed(Activity resumedActivity) {}
+            @Override public void onActivityPaused(Activity pausedActivity) {}
+            @Override public void onActivityStopped(Activity stoppedActivity) {}
+            @Override public void onActivitySaveInstanceState(Activity savingActivity, Bundle outState) {}
+
+            @Override
+            public void onActivityDestroyed(Activity destroyedActivity) {
+                HapticTarget target = hapticTarget;
+
+                if (target != null && target.activity.get() == destroyedActivity)
+                    hapticTarget = null;
+            }
+        });
+
+        isLifecycleCallbackRegistered = true;
+    }
+
     public static void DoVibrate(Context ctx, long milliseconds) {
         DoVibrate(ctx, milliseconds, -1);
     }
@@ -162,27 +208,8 @@ public class Vibration {
         if(ctx == null) return;
         if(strength <= 0 || strength > 255) strength = -1;
 
-        if (!isVibratorInitialised) {
-            if (ContextCompat.checkSelfPermission(ctx, Manifest.permission.VIBRATE) == PackageManager.PERMISSION_GRANTED) {
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
-                    // SDK 31+ VIBRATOR_SERVICE is depreciated and the VIBRATOR_MANAGER_SERVICE should be used instead
-                    VibratorManager vibratorManager = (VibratorManager) ctx.getSystemService(Context.VIBRATOR_MANAGER_SERVICE);
-                    vibrator = vibratorManager.getDefaultVibrator();
-                } else {
-                    vibrator = (Vibrator) ctx.getSystemService(Context.VIBRATOR_SERVICE);
-                }
-
-                isVibratorDisabled = vibrator == null || !vibrator.hasVibrator();
-
-                if (isVibratorDisabled)
-                    Log.i("PicklePKG", "Vibration.DoVibrate(..) Vibration not supported on this device");
-            } else {
-                Log.e("PicklePKG", "Vibration.DoVibrate(..) the app does not have VIBRATE permission!");
-                isVibratorDisabled = true;
-            }
-
-            isVibratorInitialised = true;
-        }
+        if (!isVibratorInitialised)
+            InitVibrator(ctx);
 
         // Make sure the vibrator isn't disabled
         if (!isVibratorDisabled) {
@@ -194,7 +221,7 @@ public class Vibration {
 
                     if (effect != null) {
                         if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU){
-                            vibrator.vibrate(effect, VibrationAttributes.createForUsage(VibrationAttributes.USAGE_MEDIA));
+                            vibrator.vibrate(effect, GetMediaAttributes());
                         } else {
                             vibrator.vibrate(effect);
                         }
@@ -209,6 +236,40 @@ public class Vibration {
         }
     }
 
+    @RequiresApi(api = Build.VERSION_CODES.TIRAMISU)
+    static VibrationAttributes GetMediaAttributes() {
+        // Benign race, at worst two identical instances are built
+        if (mediaAttributes == null)
+            mediaAttributes = VibrationAttributes.createForUsage(VibrationAttributes.USAGE_MEDIA);
+
+        return mediaAttributes;
+    }
+
+    // Looks up the vibrator service, also called ahead of time by PluginWarmup so the first vibration doesn't pay for it
+    static synchronized void InitVibrator(Context ctx) {
+        if (isVibratorInitialised || ctx == null) return;
+
+        if (ContextCompat.checkSelfPermission(ctx, Manifest.permission.VIBRATE) == PackageManager.PERMISSION_GRANTED) {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+                // SDK 31+ VIBRATOR_SERVICE is depreciated and the VIBRATOR_MANAGER_SERVICE should be used instead
+                VibratorManager vibratorManager = (VibratorManager) ctx.getSystemService(Context.VIBRATOR_MANAGER_SERVICE);
+                vibrator = vibratorManager.getDefaultVibrator();
+            } else {
+                vibrator = (Vibrator) ctx.getSystemService(Context.VIBRATOR_SERVICE);
+            }
+
+            isVibratorDisabled = vibrator == null || !vibrator.hasVibrator();
+
+            if (isVibratorDisabled)
+                Log.i("PicklePKG", "Vibration.DoVibrate(..) Vibration not supported on this device");
+        } else {
+            Log.e("PicklePKG", "Vibration.DoVibrate(..) the app does not have VIBRATE permission!");
+            isVibratorDisabled = true;
+        }
+
+        isVibratorInitialised = true;
+    }
+
     // Suppress warnings about the permission for vibration not being in the manifest because we have the section wrapped in a check for the vibrate permission anyway
     @SuppressWarnings({"MissingPermission"})
     public static void StopVibrate() {
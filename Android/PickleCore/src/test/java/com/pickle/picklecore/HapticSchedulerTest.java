@@ -0,0 +1,70 @@
+package com.pickle.picklecore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class HapticSchedulerTest {
+
+    // A vibration already waiting for its coalesce window to close
+    private static HapticScheduler.PendingHaptic Pending(long milliseconds, int strength, boolean ignoreDeviceHapticSetting) {
+        HapticScheduler.PendingHaptic pending = new HapticScheduler.PendingHaptic(false);
+        pending.isPending = true;
+        pending.milliseconds = milliseconds;
+        pending.strength = strength;
+        pending.ignoreDeviceHapticSetting = ignoreDeviceHapticSetting;
+        return pending;
+    }
+
+    @Test
+    public void strongestRequestWins() {
+        HapticScheduler.PendingHaptic pending = Pending(100L, 80, false);
+
+        HapticScheduler.Merge(pending, 20L, 200, false);
+        assertEquals(200, pending.strength);
+        assertEquals(20L, pending.milliseconds);
+
+        // Weaker but longer doesn't replace it
+        HapticScheduler.Merge(pending, 500L, 150, false);
+        assertEquals(200, pending.strength);
+        assertEquals(20L, pending.milliseconds);
+    }
+
+    @Test
+    public void defaultStrengthCountsAsFullStrength() {
+        HapticScheduler.PendingHaptic pending = Pending(40L, 255, false);
+
+        HapticScheduler.Merge(pending, 30L, -1, false);
+        assertEquals(-1, pending.strength);
+        assertEquals(30L, pending.milliseconds);
+
+        HapticScheduler.Merge(pending, 500L, 255, false);
+        assertEquals(-1, pending.strength);
+        assertEquals(30L, pending.milliseconds);
+    }
+
+    @Test
+    public void longerRequestWinsWhenEquallyStrong() {
+        HapticScheduler.PendingHaptic pending = Pending(40L, 128, false);
+
+        HapticScheduler.Merge(pending, 90L, 128, false);
+        assertEquals(90L, pending.milliseconds);
+
+        HapticScheduler.Merge(pending, 60L, 128, false);
+        assertEquals(90L, pending.milliseconds);
+    }
+
+    @Test
+    public void ignoreDeviceHapticSettingIsKeptFromAnyRequest() {
+        HapticScheduler.PendingHaptic pending = Pending(0L, 200, false);
+
+        // Set by a weaker request which doesn't replace the pending strength
+        HapticScheduler.Merge(pending, 0L, 10, true);
+        assertEquals(200, pending.strength);
+        assertTrue(pending.ignoreDeviceHapticSetting);
+
+        HapticScheduler.Merge(pending, 0L, 255, false);
+        assertTrue(pending.ignoreDeviceHapticSetting);
+    }
+}
@@ -0,0 +1,70 @@
+package com.pickle.picklecore;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+
+public class InstalledPackagesTest {
+
+    private static InstalledPackages.Snapshot CreateSnapshot() {
+        return InstalledPackages.CreateSnapshot(0, new String[]{
+            "com.pickle.game", "com.android.chrome", "com.Pickle.Editor", "com.google.android.gm", "org.pickle", "com.pickle.game.beta"
+        });
+    }
+
+    private static String[] Query(InstalledPackages.Snapshot snapshot, int matchMode, String... patterns) {
+        return InstalledPackages.GetPage(snapshot, InstalledPackages.Match(snapshot, matchMode, patterns), 0, 0);
+    }
+
+    @Test
+    public void matchAllIgnoresPatternsAndKeepsCaseInsensitiveOrder() {
+        InstalledPackages.Snapshot snapshot = CreateSnapshot();
+
+        assertArrayEquals(new String[]{ "com.android.chrome", "com.google.android.gm", "com.Pickle.Editor", "com.pickle.game",
+                "com.pickle.game.beta", "org.pickle" }, Query(snapshot, InstalledPackages.MATCH_ALL, "nothing"));
+    }
+
+    @Test
+    public void prefixMatchesIgnoreCaseAndDontRepeatAcrossPatterns() {
+        InstalledPackages.Snapshot snapshot = CreateSnapshot();
+
+        assertArrayEquals(new String[]{ "com.Pickle.Editor", "com.pickle.game", "com.pickle.game.beta" },
+                Query(snapshot, InstalledPackages.MATCH_PREFIX, "COM.PICKLE"));
+        assertArrayEquals(new String[]{ "com.Pickle.Editor", "com.pickle.game", "com.pickle.game.beta", "org.pickle" },
+                Query(snapshot, InstalledPackages.MATCH_PREFIX, "org.", "com.pickle.", "com.pickle.game", null));
+        assertArrayEquals(new String[0], Query(snapshot, InstalledPackages.MATCH_PREFIX, "zzz"));
+    }
+
+    @Test
+    public void exactMatchesWholeNamesOnly() {
+        InstalledPackages.Snapshot snapshot = CreateSnapshot();
+
+        assertArrayEquals(new String[]{ "com.Pickle.Editor", "com.pickle.game" },
+                Query(snapshot, InstalledPackages.MATCH_EXACT, "com.pickle.editor", "com.pickle.game", "com.pickle"));
+    }
+
+    @Test
+    public void substringMatchesAnywhereInTheName() {
+        InstalledPackages.Snapshot snapshot = CreateSnapshot();
+
+        assertArrayEquals(new String[]{ "com.android.chrome", "com.google.android.gm" },
+                Query(snapshot, InstalledPackages.MATCH_SUBSTRING, "ANDROID"));
+        assertArrayEquals(new String[0], Query(snapshot, InstalledPackages.MATCH_SUBSTRING, (String[]) null));
+    }
+
+    @Test
+    public void getPageSkipsOffsetAndClampsLimit() {
+        InstalledPackages.Snapshot snapshot = CreateSnapshot();
+        BitSet matches = InstalledPackages.Match(snapshot, InstalledPackages.MATCH_ALL, null);
+
+        assertArrayEquals(new String[]{ "com.Pickle.Editor", "com.pickle.game" }, InstalledPackages.GetPage(snapshot, matches, 2, 2));
+        assertArrayEquals(new String[]{ "com.pickle.game.beta", "org.pickle" }, InstalledPackages.GetPage(snapshot, matches, 4, 10));
+        assertArrayEquals(new String[]{ "org.pickle" }, InstalledPackages.GetPage(snapshot, matches, 5, 0));
+        assertEquals(0, InstalledPackages.GetPage(snapshot, matches, 6, 2).length);
+        assertEquals(0, InstalledPackages.GetPage(snapshot, matches, 100, 0).length);
+        assertEquals(2, InstalledPackages.GetPage(snapshot, matches, -5, 2).length);
+    }
+}
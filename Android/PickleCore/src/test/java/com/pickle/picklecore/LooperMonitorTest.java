@@ -0,0 +1,93 @@
+package com.pickle.picklecore;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class LooperMonitorTest {
+
+    @After
+    public void tearDown() {
+        LooperMonitor.Reset();
+    }
+
+    @Test
+    public void smallValuesGetTheirOwnBucket() {
+        for(int value=0;value < 32;++value) {
+            assertEquals(value, LooperMonitor.GetBucketIndex(value));
+            assertEquals(value, LooperMonitor.GetBucketHighestValue(value));
+        }
+
+        assertEquals(0, LooperMonitor.GetBucketIndex(-5L));
+    }
+
+    @Test
+    public void eachPowerOfTwoIsSplitIntoSixteenBuckets() {
+        assertEquals(32, LooperMonitor.GetBucketIndex(32L));
+        assertEquals(32, LooperMonitor.GetBucketIndex(33L));
+        assertEquals(33, LooperMonitor.GetBucketIndex(34L));
+        assertEquals(47, LooperMonitor.GetBucketIndex(63L));
+        assertEquals(48, LooperMonitor.GetBucketIndex(64L));
+        assertEquals(64, LooperMonitor.GetBucketIndex(128L));
+
+        assertEquals(33L, LooperMonitor.GetBucketHighestValue(32));
+        assertEquals(63L, LooperMonitor.GetBucketHighestValue(47));
+        assertEquals(67L, LooperMonitor.GetBucketHighestValue(48));
+    }
+
+    @Test
+    public void bucketsCoverEveryValueWithinSixPercent() {
+        for(long value=0L;value < (1L << 20);value += 1L + value / 64L) {
+            int index = LooperMonitor.GetBucketIndex(value);
+            long highestValue = LooperMonitor.GetBucketHighestValue(index);
+
+            assertTrue(value + " above bucket " + index, highestValue >= value);
+            assertTrue(value + " below bucket " + index, index == 0 || LooperMonitor.GetBucketHighestValue(index - 1) < value);
+            assertTrue(value + " bucket too wide", highestValue - value <= value / 16L);
+        }
+    }
+
+    @Test
+    public void valuesBeyondTheLastMagnitudeShareTheLastBucket() {
+        int lastIndex = LooperMonitor.GetBucketIndex((1L << 36) - 1L);
+
+        assertEquals((1L << 36) - 1L, LooperMonitor.GetBucketHighestValue(lastIndex));
+        assertEquals(lastIndex, LooperMonitor.GetBucketIndex(1L << 36));
+        assertEquals(lastIndex, LooperMonitor.GetBucketIndex(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void percentilesReportBucketHighestValueCappedAtMax() {
+        assertArrayEquals(new long[]{ 0L, 0L, 0L, 0L, 0L }, LooperMonitor.GetLatencyPercentiles());
+
+        for(long microseconds=1L;microseconds <= 100L;++microseconds)
+            LooperMonitor.Record(microseconds * 1000L, null);
+
+        // 50 falls in the 50-51 bucket, 95 in 92-95 and 99 in 96-99
+        assertArrayEquals(new long[]{ 100L, 51L, 95L, 99L, 100L }, LooperMonitor.GetLatencyPercentiles());
+
+        LooperMonitor.Reset();
+        LooperMonitor.Record(1_000_000L * 1000L, null);
+
+        // A single sample reports itself rather than the top of its much wider bucket
+        assertArrayEquals(new long[]{ 1L, 1_000_000L, 1_000_000L, 1_000_000L, 1_000_000L }, LooperMonitor.GetLatencyPercentiles());
+    }
+
+    @Test
+    public void slowMessagesAreKeptNewestFirst() {
+        LooperMonitor.Record(1_000_000L, ">>>>> Dispatching to Handler (com.pickle.Fast) {a1b2c3} null: 0");
+
+        for(int i=0;i < 34;++i)
+            LooperMonitor.Record((20_000L + i) * 1000L, ">>>>> Dispatching to Handler (com.pickle.Slow" + i + ") {a1b2c3} null: 0");
+
+        String[] lines = LooperMonitor.GetSlowMessages().split("\n");
+
+        // Only the last 32 fit in the ring
+        assertEquals(32, lines.length);
+        assertEquals("com.pickle.Slow33 20033", lines[0]);
+        assertEquals("com.pickle.Slow2 20002", lines[31]);
+    }
+}
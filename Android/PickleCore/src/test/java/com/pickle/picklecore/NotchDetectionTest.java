@@ -0,0 +1,241 @@
+package com.pickle.picklecore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+public class NotchDetectionTest {
+
+    // Stand-ins for the vendor classes the Huawei and Vivo strategies look up by name
+    public static class FakeHwNotchSizeUtil {
+        static boolean hasNotch;
+        static int[] notchSize;
+
+        public static boolean hasNotchInScreen() { return hasNotch; }
+        public static int[] getNotchSize() { return notchSize; }
+    }
+
+    public static class FakeFtFeature {
+        static int supportedFeatures;
+
+        public static boolean isFeatureSupport(int feature) { return (supportedFeatures & feature) != 0; }
+    }
+
+    // A device with nothing set, tests fill in whatever vendor values they need
+    private static class FakeDevice implements NotchDetection.DeviceSource {
+        final Map<String, Class<?>> vendorClasses = new HashMap<>();
+        final Map<String, String> properties = new HashMap<>();
+        final Set<String> features = new HashSet<>();
+        final Map<String, Integer> dimensions = new HashMap<>();
+        final Map<String, String> strings = new HashMap<>();
+        float densityDpi = 160f;
+
+        private final ClassLoader classLoader = new ClassLoader(NotchDetectionTest.class.getClassLoader()) {
+            @Override protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+                Class<?> vendorClass = vendorClasses.get(name);
+
+                if(vendorClass != null) return vendorClass;
+                if(name.startsWith("com.huawei.") || name.equals("android.util.FtFeature")) throw new ClassNotFoundException(name);
+
+                return super.loadClass(name, resolve);
+            }
+        };
+
+        @Override public ClassLoader GetClassLoader() { return classLoader; }
+
+        @Override public String GetSystemProperty(String propName) {
+            String value = properties.get(propName);
+            return value != null ? value : "";
+        }
+
+        @Override public boolean HasSystemFeature(String featureName) { return features.contains(featureName); }
+
+        @Override public int GetAndroidDimensionPixelSize(String name) {
+            Integer value = dimensions.get(name);
+            return value != null ? value : 0;
+        }
+
+        @Override public String GetAndroidString(String name) { return strings.get(name); }
+
+        @Override public float GetDensityDpi() { return densityDpi; }
+    }
+
+    // Reports a fixed detection result and size regardless of the device, subclassed so each one has its own strategy name
+    private static class FixedStrategy implements NotchDetection.NotchStrategy {
+        final int detection, notchSize;
+
+        FixedStrategy(int inDetection, int inNotchSize) {
+            detection = inDetection;
+            notchSize = inNotchSize;
+        }
+
+        @Override public int DetectNotch(NotchDetection.DeviceSource device) { return detection; }
+        @Override public int ProbeNotchSize(NotchDetection.DeviceSource device) { return notchSize; }
+    }
+
+    private static class FirstStrategy extends FixedStrategy {
+        FirstStrategy(int inDetection, int inNotchSize) { super(inDetection, inNotchSize); }
+    }
+
+    private static class SecondStrategy extends FixedStrategy {
+        SecondStrategy(int inDetection, int inNotchSize) { super(inDetection, inNotchSize); }
+    }
+
+    private static class ThirdStrategy extends FixedStrategy {
+        ThirdStrategy(int inDetection, int inNotchSize) { super(inDetection, inNotchSize); }
+    }
+
+    @After
+    public void tearDown() {
+        FakeHwNotchSizeUtil.hasNotch = false;
+        FakeHwNotchSizeUtil.notchSize = null;
+        FakeFtFeature.supportedFeatures = 0;
+
+        NotchDetection.setStrategies(new NotchDetection.HuaweiStrategy(), new NotchDetection.OppoStrategy(),
+                new NotchDetection.VivoStrategy(), new NotchDetection.XiaomiStrategy(), new NotchDetection.SamsungStrategy());
+    }
+
+    @Test
+    public void huaweiDetectsThroughHasNotchInScreen() throws Exception {
+        FakeDevice device = new FakeDevice();
+        NotchDetection.HuaweiStrategy strategy = new NotchDetection.HuaweiStrategy();
+
+        device.vendorClasses.put("com.huawei.android.util.HwNotchSizeUtil", FakeHwNotchSizeUtil.class);
+
+        assertEquals(NotchDetection.NOTCH_NOT_DETECTED, strategy.DetectNotch(device));
+
+        FakeHwNotchSizeUtil.hasNotch = true;
+        assertEquals(NotchDetection.NOTCH_DETECTED, strategy.DetectNotch(device));
+    }
+
+    @Test
+    public void huaweiSizeIsReadEvenWithoutHasNotchInScreen() throws Exception {
+        FakeDevice device = new FakeDevice();
+        NotchDetection.HuaweiStrategy strategy = new NotchDetection.HuaweiStrategy();
+
+        device.vendorClasses.put("com.huawei.android.util.HwNotchSizeUtil", FakeHwNotchSizeUtil.class);
+
+        FakeHwNotchSizeUtil.notchSize = new int[]{ 500, 80 };
+        assertEquals(80, strategy.ProbeNotchSize(device));
+
+        FakeHwNotchSizeUtil.notchSize = new int[]{ 500 };
+        assertEquals(0, strategy.ProbeNotchSize(device));
+    }
+
+    @Test
+    public void oppoDetectsOnlyThroughSystemFeature() {
+        FakeDevice device = new FakeDevice();
+        NotchDetection.OppoStrategy strategy = new NotchDetection.OppoStrategy();
+
+        // The property alone gives a size but isn't a notch
+        device.properties.put("ro.oppo.screen.heteromorphism", "324,0:756,80");
+        assertEquals(NotchDetection.NOTCH_NOT_CHECKED, strategy.DetectNotch(device));
+        assertEquals(80, strategy.ProbeNotchSize(device));
+
+        device.features.add("com.oppo.feature.screen.heteromorphism");
+        assertEquals(NotchDetection.NOTCH_DETECTED, strategy.DetectNotch(device));
+    }
+
+    @Test
+    public void oppoSizeNeedsEveryPropertyValueToParse() {
+        FakeDevice device = new FakeDevice();
+        NotchDetection.OppoStrategy strategy = new NotchDetection.OppoStrategy();
+
+        assertEquals(0, strategy.ProbeNotchSize(device));
+
+        device.properties.put("ro.oppo.screen.heteromorphism", "324,x:756,80");
+        assertEquals(0, strategy.ProbeNotchSize(device));
+    }
+
+    @Test
+    public void vivoScalesFixedNotchByDensity() throws Exception {
+        FakeDevice device = new FakeDevice();
+        NotchDetection.VivoStrategy strategy = new NotchDetection.VivoStrategy();
+
+        device.vendorClasses.put("android.util.FtFeature", FakeFtFeature.class);
+
+        assertEquals(NotchDetection.NOTCH_NOT_DETECTED, strategy.DetectNotch(device));
+        assertEquals(0, strategy.ProbeNotchSize(device));
+
+        FakeFtFeature.supportedFeatures = 0x00000020;
+        device.densityDpi = 480f;
+        assertEquals(NotchDetection.NOTCH_DETECTED, strategy.DetectNotch(device));
+        assertEquals(96, strategy.ProbeNotchSize(device));
+
+        // Falls back to the baseline dpi when the density couldn't be read
+        device.densityDpi = -1f;
+        assertEquals(32, strategy.ProbeNotchSize(device));
+    }
+
+    @Test
+    public void xiaomiReadsNotchHeightResource() {
+        FakeDevice device = new FakeDevice();
+        NotchDetection.XiaomiStrategy strategy = new NotchDetection.XiaomiStrategy();
+
+        device.dimensions.put("notch_height", 89);
+        assertEquals(NotchDetection.NOTCH_NOT_CHECKED, strategy.DetectNotch(device));
+        assertEquals(0, strategy.ProbeNotchSize(device));
+
+        device.properties.put("ro.miui.notch", "1");
+        assertEquals(NotchDetection.NOTCH_DETECTED, strategy.DetectNotch(device));
+        assertEquals(89, strategy.ProbeNotchSize(device));
+
+        device.dimensions.clear();
+        assertEquals(0, strategy.ProbeNotchSize(device));
+    }
+
+    @Test
+    public void samsungUsesStatusBarHeightForCutout() {
+        FakeDevice device = new FakeDevice();
+        NotchDetection.SamsungStrategy strategy = new NotchDetection.SamsungStrategy();
+
+        device.dimensions.put("status_bar_height", 72);
+        assertEquals(NotchDetection.NOTCH_NOT_CHECKED, strategy.DetectNotch(device));
+        assertEquals(0, strategy.ProbeNotchSize(device));
+
+        device.strings.put("config_mainBuiltInDisplayCutout", "");
+        assertEquals(0, strategy.ProbeNotchSize(device));
+
+        device.strings.put("config_mainBuiltInDisplayCutout", "M 0,0 H -24 V 24 H 24 Z @dp");
+        assertEquals(NotchDetection.NOTCH_DETECTED, strategy.DetectNotch(device));
+        assertEquals(72, strategy.ProbeNotchSize(device));
+    }
+
+    @Test
+    public void firstDetectionWinsButLastReportedSizeIsUsed() {
+        NotchDetection.setStrategies(new FirstStrategy(NotchDetection.NOTCH_NOT_CHECKED, 40), new SecondStrategy(NotchDetection.NOTCH_DETECTED, 60),
+                new ThirdStrategy(NotchDetection.NOTCH_DETECTED, 80), new FixedStrategy(NotchDetection.NOTCH_NOT_CHECKED, 0));
+        NotchDetection.Probe(new FakeDevice());
+
+        assertTrue(NotchDetection.HasNotch(null));
+        assertEquals("SecondStrategy", NotchDetection.GetDetectedStrategyName(null));
+        assertEquals(80, NotchDetection.GetNotchSize(null));
+    }
+
+    @Test
+    public void notDetectedAnswerStopsLaterDetection() {
+        NotchDetection.setStrategies(new FirstStrategy(NotchDetection.NOTCH_NOT_DETECTED, 0), new SecondStrategy(NotchDetection.NOTCH_DETECTED, 60));
+        NotchDetection.Probe(new FakeDevice());
+
+        // Like the original checks a manufacturer API saying no is final, the size is still collected from every strategy
+        assertFalse(NotchDetection.HasNotch(null));
+        assertEquals("", NotchDetection.GetDetectedStrategyName(null));
+        assertEquals(60, NotchDetection.GetNotchSize(null));
+    }
+
+    @Test
+    public void noDetectionReportsNoNotch() {
+        NotchDetection.Probe(new FakeDevice());
+
+        assertFalse(NotchDetection.HasNotch(null));
+        assertEquals(0, NotchDetection.GetNotchSize(null));
+    }
+}
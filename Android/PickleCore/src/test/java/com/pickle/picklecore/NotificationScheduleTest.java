@@ -0,0 +1,129 @@
+package com.pickle.picklecore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class NotificationScheduleTest {
+
+    private File filesDir;
+    private Context ctx;
+
+    @Before
+    public void setUp() throws Exception {
+        filesDir = Files.createTempDirectory("pickle_schedule").toFile();
+
+        // Only the files dir is needed for the schedule file
+        ctx = new ContextWrapper(null) {
+            @Override public File getFilesDir() { return filesDir; }
+        };
+    }
+
+    @After
+    public void tearDown() {
+        NotificationSchedule.Close();
+
+        File[] files = filesDir.listFiles();
+
+        if(files != null) {
+            for(File file : files)
+                file.delete();
+        }
+
+        filesDir.delete();
+    }
+
+    private static NotificationSchedule.Entry CreateEntry(int notificationId, String msgBody, long triggerAtMillis) {
+        return new NotificationSchedule.Entry(notificationId, "pickle_channel", "Title " + notificationId, msgBody, 60,
+                "icon_small", "icon_large", true, 2, triggerAtMillis);
+    }
+
+    private static String Repeat(String value, int count) {
+        StringBuilder builder = new StringBuilder();
+
+        for(int i=0;i < count;++i)
+            builder.append(value);
+
+        return builder.toString();
+    }
+
+    @Test
+    public void recordsSurviveReopeningTheSchedule() {
+        NotificationSchedule.Add(ctx, Arrays.asList(CreateEntry(7, "Crops are ready \uD83C\uDF3D", 5000L), CreateEntry(-3, null, 1000L)));
+        NotificationSchedule.Close();
+
+        NotificationSchedule.Entry entry = NotificationSchedule.Get(ctx, 7);
+
+        assertEquals(7, entry.notificationId);
+        assertEquals("pickle_channel", entry.channelId);
+        assertEquals("Title 7", entry.msgTitle);
+        assertEquals("Crops are ready \uD83C\uDF3D", entry.msgBody);
+        assertEquals(60, entry.sendAfterSeconds);
+        assertEquals("icon_small", entry.smallIconName);
+        assertEquals("icon_large", entry.largeIconName);
+        assertTrue(entry.removeWhenTapped);
+        assertEquals(2, entry.priority);
+        assertEquals(5000L, entry.triggerAtMillis);
+
+        // Null strings are stored as empty strings
+        assertEquals("", NotificationSchedule.Get(ctx, -3).msgBody);
+        assertEquals(1000L, NotificationSchedule.GetNextTriggerTime(ctx));
+    }
+
+    @Test
+    public void removedSlotsAreReusedAndStayRemovedAfterReopening() {
+        NotificationSchedule.Add(ctx, Arrays.asList(CreateEntry(1, "a", 100L), CreateEntry(2, "b", 200L)));
+
+        assertTrue(NotificationSchedule.Remove(ctx, 1));
+        assertFalse(NotificationSchedule.Remove(ctx, 1));
+
+        NotificationSchedule.Add(ctx, Collections.singletonList(CreateEntry(3, "c", 300L)));
+        assertEquals(2 * 2048L, new File(filesDir, "pickle_notification_schedule.bin").length());
+
+        NotificationSchedule.Close();
+
+        assertNull(NotificationSchedule.Get(ctx, 1));
+        assertEquals("b", NotificationSchedule.Get(ctx, 2).msgBody);
+        assertEquals("c", NotificationSchedule.Get(ctx, 3).msgBody);
+        assertEquals(2, NotificationSchedule.RemoveDue(ctx, 300L).size());
+        assertEquals(Long.MAX_VALUE, NotificationSchedule.GetNextTriggerTime(ctx));
+    }
+
+    @Test
+    public void longBodyIsTruncatedWithoutSplittingCharacters() {
+        // 2048 byte record - 24 byte header - 8 bytes for the 4 empty strings before the body - 2 byte body length leaves 2014 bytes,
+        // which ends part way through the 672nd 3 byte character
+        NotificationSchedule.Add(ctx, Collections.singletonList(new NotificationSchedule.Entry(1, "", "", Repeat("\u20ac", 700), 0,
+                "", "", false, 0, 0L)));
+        NotificationSchedule.Close();
+
+        assertEquals(Repeat("\u20ac", 671), NotificationSchedule.Get(ctx, 1).msgBody);
+    }
+
+    @Test
+    public void truncationKeepsTheStringsNeededToDeliver() {
+        NotificationSchedule.Add(ctx, Collections.singletonList(new NotificationSchedule.Entry(1, "pickle_channel", Repeat("t", 3000),
+                "body", 0, "icon_small", "icon_large", false, 0, 0L)));
+
+        NotificationSchedule.Entry entry = NotificationSchedule.Get(ctx, 1);
+
+        assertEquals("pickle_channel", entry.channelId);
+        assertEquals("icon_small", entry.smallIconName);
+        assertEquals("icon_large", entry.largeIconName);
+        assertTrue(entry.msgTitle.length() > 0 && entry.msgTitle.length() < 3000);
+        assertEquals("", entry.msgBody);
+    }
+}
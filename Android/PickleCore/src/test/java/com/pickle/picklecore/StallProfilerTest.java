@@ -0,0 +1,80 @@
+package com.pickle.picklecore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class StallProfilerTest {
+
+    // A two frame stack with the given method on top
+    private static StackTraceElement[] CreateStack(String topMethod, int topLine) {
+        return new StackTraceElement[]{
+            new StackTraceElement("com.pickle.Game", topMethod, "Game.java", topLine),
+            new StackTraceElement("android.os.Looper", "loop", "Looper.java", 223)
+        };
+    }
+
+    @Test
+    public void identicalStacksShareOneSlot() {
+        StallProfiler profiler = new StallProfiler(4);
+
+        profiler.Sample(CreateStack("Load", 10), 100L);
+        profiler.Sample(CreateStack("Load", 10), 200L);
+        profiler.Sample(CreateStack("Save", 20), 300L);
+        profiler.Sample(CreateStack("Load", 10), 400L);
+
+        String report = profiler.GetReport();
+
+        assertEquals(4, profiler.GetSampleCount());
+        assertTrue(report, report.startsWith("samples=4 unique=2\n"));
+
+        // Most sampled stack first, with the stall time it was first and last seen at
+        assertTrue(report, report.indexOf(" x3 100-400ms\n  com.pickle.Game.Load(Game.java:10)\n") > 0);
+        assertTrue(report, report.indexOf(" x3 ") < report.indexOf(" x1 300-300ms\n  com.pickle.Game.Save(Game.java:20)\n"));
+    }
+
+    @Test
+    public void differentLineNumbersAreDifferentStacks() {
+        StallProfiler profiler = new StallProfiler(4);
+
+        profiler.Sample(CreateStack("Load", 10), 100L);
+        profiler.Sample(CreateStack("Load", 11), 200L);
+
+        assertTrue(profiler.GetReport().startsWith("samples=2 unique=2\n"));
+    }
+
+    @Test
+    public void fullRingOverwritesOldestSlot() {
+        StallProfiler profiler = new StallProfiler(2);
+
+        profiler.Sample(CreateStack("First", 1), 100L);
+        profiler.Sample(CreateStack("Second", 2), 200L);
+        profiler.Sample(CreateStack("Third", 3), 300L);
+
+        String report = profiler.GetReport();
+
+        assertTrue(report, report.startsWith("samples=3 unique=2\n"));
+        assertFalse(report, report.contains("First"));
+        assertTrue(report, report.contains("Second") && report.contains("Third"));
+
+        // The evicted stack starts counting again from one in the next slot to be overwritten
+        profiler.Sample(CreateStack("First", 1), 400L);
+        report = profiler.GetReport();
+
+        assertFalse(report, report.contains("Second"));
+        assertTrue(report, report.contains(" x1 400-400ms\n  com.pickle.Game.First(Game.java:1)\n"));
+    }
+
+    @Test
+    public void resetForgetsEverySample() {
+        StallProfiler profiler = new StallProfiler(2);
+
+        profiler.Sample(CreateStack("Load", 10), 100L);
+        profiler.Reset();
+
+        assertEquals(0, profiler.GetSampleCount());
+        assertEquals("", profiler.GetReport());
+    }
+}
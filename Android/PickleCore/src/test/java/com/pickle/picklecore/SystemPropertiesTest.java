@@ -0,0 +1,102 @@
+package com.pickle.picklecore;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class SystemPropertiesTest {
+
+    // Returns values from a map and counts how many times it was asked, optionally failing every read
+    private static class FakeBackend implements SystemProperties.PropertyBackend {
+        final Map<String, String> values = new HashMap<>();
+        final boolean shouldFail;
+        int readCount;
+
+        FakeBackend(boolean inShouldFail) {
+            shouldFail = inShouldFail;
+        }
+
+        FakeBackend with(String propName, String value) {
+            values.put(propName, value);
+            return this;
+        }
+
+        @Override public String get(String propName) throws Exception {
+            ++readCount;
+
+            if(shouldFail) throw new IllegalStateException("backend unavailable");
+
+            String value = values.get(propName);
+            return value != null ? value : "";
+        }
+    }
+
+    @After
+    public void tearDown() {
+        SystemProperties.setBackends(new SystemProperties.ReflectionBackend(), new SystemProperties.GetpropBackend());
+    }
+
+    @Test
+    public void fallsBackToGetpropWhenReflectionFails() {
+        FakeBackend reflection = new FakeBackend(true);
+        FakeBackend getprop = new FakeBackend(false).with("ro.product.brand", "pickle");
+
+        SystemProperties.setBackends(reflection, getprop);
+
+        assertEquals("pickle", SystemProperties.getProperty("ro.product.brand"));
+        assertEquals(1, reflection.readCount);
+        assertEquals(1, getprop.readCount);
+    }
+
+    @Test
+    public void skipsGetpropWhenReflectionSucceeds() {
+        FakeBackend reflection = new FakeBackend(false).with("ro.product.brand", "pickle");
+        FakeBackend getprop = new FakeBackend(false).with("ro.product.brand", "getprop");
+
+        SystemProperties.setBackends(reflection, getprop);
+
+        assertEquals("pickle", SystemProperties.getProperty("ro.product.brand"));
+        assertEquals(1, reflection.readCount);
+        assertEquals(0, getprop.readCount);
+    }
+
+    @Test
+    public void repeatedReadsHitTheCache() {
+        FakeBackend reflection = new FakeBackend(false).with("ro.build.version.emui", "EmotionUI_9.1");
+
+        SystemProperties.setBackends(reflection);
+
+        assertEquals("EmotionUI_9.1", SystemProperties.getProperty("ro.build.version.emui"));
+        assertEquals("EmotionUI_9.1", SystemProperties.getProperty("ro.build.version.emui"));
+        assertEquals(1, reflection.readCount);
+    }
+
+    @Test
+    public void failedReadsAreNotCached() {
+        FakeBackend reflection = new FakeBackend(true);
+
+        SystemProperties.setBackends(reflection);
+
+        assertEquals("", SystemProperties.getProperty("ro.product.brand"));
+        assertEquals("", SystemProperties.getProperty("ro.product.brand"));
+        assertEquals(2, reflection.readCount);
+    }
+
+    @Test
+    public void getPropertiesKeepsRequestedOrder() {
+        FakeBackend reflection = new FakeBackend(false)
+                .with("ro.product.brand", "pickle")
+                .with("ro.product.model", "jar")
+                .with("ro.build.version.release", "13");
+
+        SystemProperties.setBackends(reflection);
+
+        assertArrayEquals(new String[]{ "13", "", "pickle", "jar" },
+                SystemProperties.getProperties("ro.build.version.release", "ro.missing", "ro.product.brand", "ro.product.model"));
+    }
+}
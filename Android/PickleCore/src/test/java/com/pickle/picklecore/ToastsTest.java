@@ -0,0 +1,80 @@
+package com.pickle.picklecore;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ToastsTest {
+
+    @Before
+    public void setUp() {
+        Toasts.ForgetDisplayedOverlayText();
+    }
+
+    // Writes the text into the pending buffer the same way SetTextOverlayText(..) does
+    private static boolean Commit(String text) {
+        text.getChars(0, text.length(), Toasts.GetPendingOverlayBuffer(text.length()), 0);
+        return Toasts.CommitPendingOverlayText(null, text.length(), 20, 128);
+    }
+
+    @Test
+    public void isSameTextOnlyComparesTheUsedLength() {
+        char[] a = "abcdef".toCharArray();
+        char[] b = "abcxyz".toCharArray();
+
+        assertTrue(Toasts.IsSameText(a, 3, b, 3));
+        assertTrue(Toasts.IsSameText(a, 0, b, 0));
+        assertFalse(Toasts.IsSameText(a, 4, b, 4));
+        assertFalse(Toasts.IsSameText(a, 3, b, 2));
+
+        // -1 means nothing is displayed, which never matches (not even another -1)
+        assertFalse(Toasts.IsSameText(a, -1, b, -1));
+    }
+
+    @Test
+    public void buffersAreSwappedRatherThanCopied() {
+        assertTrue(Commit("60 FPS"));
+        char[] firstPending = Toasts.GetPendingOverlayBuffer(0);
+        assertTrue(Toasts.SwapOverlayBuffers());
+
+        // The previously displayed buffer is reused for the next text, the one just displayed is left alone
+        assertTrue(Commit("59 FPS"));
+        char[] secondPending = Toasts.GetPendingOverlayBuffer(0);
+        assertNotSame(firstPending, secondPending);
+        assertTrue(Toasts.SwapOverlayBuffers());
+
+        assertSame(firstPending, Toasts.GetPendingOverlayBuffer(0));
+    }
+
+    @Test
+    public void textMatchingTheDisplayedTextIsSkipped() {
+        assertTrue(Commit("60 FPS"));
+        assertTrue(Toasts.SwapOverlayBuffers());
+
+        assertFalse(Commit("60 FPS"));
+        assertFalse(Toasts.SwapOverlayBuffers());
+
+        // Once the view stops showing the displayed buffer the same text has to be applied again
+        Toasts.ForgetDisplayedOverlayText();
+        assertTrue(Commit("60 FPS"));
+        assertTrue(Toasts.SwapOverlayBuffers());
+    }
+
+    @Test
+    public void growingThePendingBufferKeepsTheDisplayedText() {
+        assertTrue(Commit("60 FPS"));
+        assertTrue(Toasts.SwapOverlayBuffers());
+
+        char[] grown = Toasts.GetPendingOverlayBuffer(200);
+        assertTrue(grown.length >= 200);
+
+        assertFalse(Commit("60 FPS"));
+        assertTrue(Commit("a much longer debug line which no longer fits into the buffer the overlay started out with, " +
+                "so the pending buffer has to grow while the displayed one is untouched"));
+        assertTrue(Toasts.SwapOverlayBuffers());
+    }
+}
@@ -1,4 +1,6 @@
 using System;
+using System.Collections.Generic;
+using Unity.Collections;
 using UnityEngine;
 
 public class PickleCore : MonoBehaviour {
@@ -23,7 +25,7 @@ public class PickleCore : MonoBehaviour {
     
     #if UNITY_ANDROID && !UNITY_EDITOR
         private static AndroidJavaObject activity, context;
-        private static AndroidJavaClass appInfo, localNotifications, systemInfo, toasts, vibration;
+        private static AndroidJavaClass anrSupervisor, appInfo, controllerHaptics, hapticEffects, hapticScheduler, installedPackages, localNotifications, looperMonitor, pluginExecutors, pluginWarmup, resourceIds, safeAreaListener, systemInfo, textOverlays, toasts, vibration;
     
         private static bool AttachCurrentThread(out int e) => (e = AndroidJNI.AttachCurrentThread()) >= 0;
         private static void DetachCurrentThread() => AndroidJNI.DetachCurrentThread();
@@ -90,9 +92,20 @@ public class PickleCore : MonoBehaviour {
                 activity = unityPlayer.GetStatic<AndroidJavaObject>("currentActivity");
                 context = activity.Call<AndroidJavaObject>("getApplicationContext");
 
+                anrSupervisor = new AndroidJavaClass("com.pickle.picklecore.ANRSupervisor");
                 appInfo = new AndroidJavaClass("com.pickle.picklecore.AppInfo");
+                controllerHaptics = new AndroidJavaClass("com.pickle.picklecore.ControllerHaptics");
+                hapticEffects = new AndroidJavaClass("com.pickle.picklecore.HapticEffects");
+                hapticScheduler = new AndroidJavaClass("com.pickle.picklecore.HapticScheduler");
+                installedPackages = new AndroidJavaClass("com.pickle.picklecore.InstalledPackages");
                 localNotifications = new AndroidJavaClass("com.pickle.picklecore.LocalNotifications");
+                looperMonitor = new AndroidJavaClass("com.pickle.picklecore.LooperMonitor");
+                pluginExecutors = new AndroidJavaClass("com.pickle.picklecore.PluginExecutors");
+                pluginWarmup = new AndroidJavaClass("com.pickle.picklecore.PluginWarmup");
+                resourceIds = new AndroidJavaClass("com.pickle.picklecore.ResourceIds");
+                safeAreaListener = new AndroidJavaClass("com.pickle.picklecore.SafeAreaListener");
                 systemInfo = new AndroidJavaClass("com.pickle.picklecore.SystemInfo");
+                textOverlays = new AndroidJavaClass("com.pickle.picklecore.TextOverlays");
                 toasts = new AndroidJavaClass("com.pickle.picklecore.Toasts");
                 vibration = new AndroidJavaClass("com.pickle.picklecore.Vibration");
 
@@ -103,6 +116,316 @@ public class PickleCore : MonoBehaviour {
         }
     #endif
     
+    // Whole display geometry block fetched with a single native call, see GetDisplayGeometry()
+    public struct DisplayGeometry {
+        public int generation; // Changes whenever the native side recomputed the values, compare to skip re-layout
+        public int width, height, density;
+        public float xDPI, yDPI;
+        public bool hasNotch;
+        public Rect safeArea, navigationBarSafeArea;
+    }
+
+    // Slot indexes matching SystemInfo.GEOMETRY_* on the Java side (each slot is 4 bytes)
+    private const int GEOMETRY_GENERATION = 0, GEOMETRY_WIDTH = 1, GEOMETRY_HEIGHT = 2, GEOMETRY_DENSITY = 3, GEOMETRY_FLAGS = 4;
+    private const int GEOMETRY_SAFE_ZONE = 5, GEOMETRY_NAVBAR_SAFE_ZONE = 9, GEOMETRY_XDPI = 13, GEOMETRY_YDPI = 14, GEOMETRY_SLOT_COUNT = 15;
+    private const int GEOMETRY_FLAG_HAS_NOTCH = 1, GEOMETRY_FLAG_SAFE_ZONE = 2, GEOMETRY_FLAG_NAVBAR_SAFE_ZONE = 4;
+
+    // A notification group for RegisterChannels(..), fields match the CreateNotificationGroup(..) parameters
+    public struct NotificationGroupSpec {
+        public string groupId, groupName;
+
+        public NotificationGroupSpec(string groupId, string groupName) {
+            this.groupId = groupId;
+            this.groupName = groupName;
+        }
+    }
+
+    // A notification channel for RegisterChannels(..), fields match the CreateNotificationChannel(..) parameters
+    public struct NotificationChannelSpec {
+        public string channelId, groupId, channelName, channelDescription;
+        public bool showOnStatusBar, playSound, showHeadsUp;
+
+        public NotificationChannelSpec(string channelId, string groupId, string channelName, string channelDescription, bool showOnStatusBar = false, bool playSound = false, bool showHeadsUp = false) {
+            this.channelId = channelId;
+            this.groupId = groupId;
+            this.channelName = channelName;
+            this.channelDescription = channelDescription;
+            this.showOnStatusBar = showOnStatusBar;
+            this.playSound = playSound;
+            this.showHeadsUp = showHeadsUp;
+        }
+    }
+
+    // A single notification for SendNotifications(..), fields match the SendNotification(..) parameters
+    public struct NotificationSpec {
+        public int notificationId;
+        public string channelId, messageTitle, messageBody;
+        public int sendAfterSeconds;
+        public string smallIconName, largeIconName;
+        public bool dismissAfterTapped;
+
+        public NotificationSpec(int notificationId, string channelId, string messageTitle, string messageBody, int sendAfterSeconds, string smallIconName, string largeIconName = "", bool dismissAfterTapped = true) {
+            this.notificationId = notificationId;
+            this.channelId = channelId;
+            this.messageTitle = messageTitle;
+            this.messageBody = messageBody;
+            this.sendAfterSeconds = sendAfterSeconds;
+            this.smallIconName = smallIconName;
+            this.largeIconName = largeIconName;
+            this.dismissAfterTapped = dismissAfterTapped;
+        }
+    }
+
+    // A scheduled notification which hasn't been delivered yet, see GetPendingNotifications()
+    public struct PendingNotification {
+        public int notificationId;
+        public string channelId, messageTitle, messageBody;
+        public DateTime fireTimeUtc;
+    }
+
+    // Android main thread message dispatch durations in milliseconds, see GetMainThreadMessageLatency()
+    public struct MessageLatency {
+        public long messageCount;
+        public float p50, p95, p99, max;
+    }
+
+    // Install and integrity info about this app fetched with a single native call, see GetAppMetadata()
+    public struct AppMetadata {
+        public long installTimestamp, initialInstallTimestamp;
+        public bool hasBadPermissions;
+        public int runId; // Same values as AppRunId() without the nextRunIdOffset applied
+    }
+
+    // Slot indexes matching AppMetadata.SLOT_* on the Java side
+    private const int APP_METADATA_INSTALL_TIMESTAMP = 0, APP_METADATA_INITIAL_INSTALL_TIMESTAMP = 1, APP_METADATA_BAD_PERMISSION_FLAGS = 2, APP_METADATA_RUN_ID = 3, APP_METADATA_SLOT_COUNT = 4;
+
+    // Where a text overlay panel is anchored, values match android.view.Gravity so they can be combined e.g Top | Left
+    [Flags]
+    public enum OverlayGravity {
+        CenterHorizontal = 1,
+        Left = 3,
+        Right = 5,
+        CenterVertical = 16,
+        Center = 17,
+        Top = 48,
+        Bottom = 80
+    }
+
+    // Queue depths and task latencies of the shared native threads, see GetExecutorMetrics()
+    public struct ExecutorMetrics {
+        public long backgroundQueueDepth, backgroundActive, backgroundCompleted, backgroundRejected;
+        public long backgroundAvgWaitMicros, backgroundMaxWaitMicros, backgroundAvgRunMicros, backgroundMaxRunMicros;
+        public long mainPending, mainCompleted, mainAvgWaitMicros, mainMaxWaitMicros, mainCoalesced;
+    }
+
+    // Slot count matching PluginExecutors.METRIC_COUNT, the fields are read in METRIC_* order
+    private const int EXECUTOR_METRIC_COUNT = 13;
+
+    // Matches the InstalledPackages.MATCH_* modes on the Java side
+    public enum PackageMatch {
+        All = 0, // Every installed package, patterns are ignored
+        Prefix = 1, // Package names starting with any of the patterns
+        Substring = 2, // Package names containing any of the patterns
+        Exact = 3 // Package names equal to any of the patterns
+    }
+
+    // Matches the ANRSupervisor.POLICY_* flags on the Java side
+    [Flags]
+    public enum ANRPolicy {
+        Log = 1, // Log the stall and its duration once it recovers
+        CaptureStack = 2, // Capture the Android main thread stack when the stall is detected
+        Notify = 4, // Invoke OnMainThreadStall / OnMainThreadRecovered
+        Kill = 8 // Kill the app if the main thread is still stalled shortly after the timeout
+    }
+
+    // Invoked on the Unity main thread with the stall duration in milliseconds and the main thread stack (if captured)
+    // Note: The Unity main thread is separate to the Android main thread so these will still arrive during an Android main thread stall
+    public static event Action<long, string> OnMainThreadStall;
+    public static event Action<long> OnMainThreadRecovered;
+
+    // Invoked right before the Kill policy kills the app with the stall duration and stall profiler report (see EnableStallProfiler)
+    // WARNING: This is invoked directly on the Java supervisor thread, NOT the Unity main thread, as the app is killed as soon as it returns
+    // Only do thread-safe work here such as logging the report to Crashlytics
+    public static event Action<long, string> OnMainThreadStallReport;
+
+    #if UNITY_ANDROID && !UNITY_EDITOR
+        private static ANRCallback anrCallback;
+
+        // Receives stall notifications from ANRSupervisor on its supervisor thread
+        private class ANRCallback : AndroidJavaProxy {
+            public ANRCallback() : base("com.pickle.picklecore.ANRSupervisor$ANRListener") { }
+
+            public void OnMainThreadStall(long stallMilliseconds, string mainThreadStack) {
+                UnityMainThreadDispatcher.instance.Enqueue(() => PickleCore.OnMainThreadStall?.Invoke(stallMilliseconds, mainThreadStack));
+            }
+
+            public void OnMainThreadRecovered(long stallMilliseconds) {
+                UnityMainThreadDispatcher.instance.Enqueue(() => PickleCore.OnMainThreadRecovered?.Invoke(stallMilliseconds));
+            }
+
+            public void OnMainThreadStallReport(long stallMilliseconds, string stallReport) {
+                PickleCore.OnMainThreadStallReport?.Invoke(stallMilliseconds, stallReport);
+            }
+        }
+    #endif
+
+    // Invoked on the Unity main thread once WarmUp() finishes with how long each native subsystem took in milliseconds
+    // Requires UnityMainThreadDispatcher in the scene
+    public static event Action<Dictionary<string, float>> OnWarmUpComplete;
+
+    #if UNITY_ANDROID && !UNITY_EDITOR
+        private static WarmUpCallback warmUpCallback;
+
+        // Receives the warm-up timings from PluginWarmup on its background thread
+        private class WarmUpCallback : AndroidJavaProxy {
+            public WarmUpCallback() : base("com.pickle.picklecore.PluginWarmup$WarmupCallback") { }
+
+            public void OnWarmupComplete(string[] subsystemNames, long[] subsystemMicroseconds) {
+                Dictionary<string, float> timings = ToWarmUpTimings(subsystemNames, subsystemMicroseconds);
+
+                UnityMainThreadDispatcher.instance.Enqueue(() => PickleCore.OnWarmUpComplete?.Invoke(timings));
+            }
+        }
+
+        private static Dictionary<string, float> ToWarmUpTimings(string[] subsystemNames, long[] subsystemMicroseconds) {
+            Dictionary<string, float> timings = new Dictionary<string, float>();
+
+            if (subsystemNames == null || subsystemMicroseconds == null) return timings;
+
+            for (int i = 0; i < subsystemNames.Length && i < subsystemMicroseconds.Length; i++)
+                timings[subsystemNames[i]] = subsystemMicroseconds[i] / 1000f; // -1 microseconds (not finished) stays negative
+
+            return timings;
+        }
+    #endif
+
+    // Invoked on the Unity main thread whenever the native safe area changes (safeArea, navigationBarSafeArea)
+    // Requires UnityMainThreadDispatcher in the scene, see StartSafeAreaUpdates()
+    public static event Action<Rect, Rect> OnSafeAreaChanged;
+
+    #if UNITY_ANDROID && !UNITY_EDITOR
+        private static SafeAreaCallback safeAreaCallback;
+        private static bool hasPushedSafeArea;
+        private static Rect pushedSafeArea, pushedNavigationBarSafeArea;
+
+        // Receives installed package query results from InstalledPackages on a background thread
+        private class PackageQueryCallback : AndroidJavaProxy {
+            private readonly Action<string[], int> onComplete;
+
+            public PackageQueryCallback(Action<string[], int> onComplete) : base("com.pickle.picklecore.InstalledPackages$PackageQueryCallback") {
+                this.onComplete = onComplete;
+            }
+
+            public void OnPackagesQueried(string[] packageNames, int totalMatches) {
+                UnityMainThreadDispatcher.instance.Enqueue(() => onComplete?.Invoke(packageNames ?? new string[0], totalMatches));
+            }
+        }
+
+        // Receives safe area changes from SafeAreaListener on the Android main thread
+        private class SafeAreaCallback : AndroidJavaProxy {
+            public SafeAreaCallback() : base("com.pickle.picklecore.SafeAreaListener$SafeAreaCallback") { }
+
+            public void OnSafeAreaChanged(int x, int y, int width, int height, int navbarX, int navbarY, int navbarWidth, int navbarHeight) {
+                // Zero sized zones mean the plugin had nothing to report so fallback to the Unity safe area like GetScreenSafeArea(..)
+                bool hasSafeZone = width > 0 && height > 0;
+                bool hasNavbarSafeZone = navbarWidth > 0 && navbarHeight > 0;
+
+                UnityMainThreadDispatcher.instance.Enqueue(() => {
+                    pushedSafeArea = hasSafeZone ? new Rect(x, y, width, height) : Screen.safeArea;
+                    pushedNavigationBarSafeArea = hasNavbarSafeZone ? new Rect(navbarX, navbarY, navbarWidth, navbarHeight) : Screen.safeArea;
+                    hasPushedSafeArea = true;
+
+                    PickleCore.OnSafeAreaChanged?.Invoke(pushedSafeArea, pushedNavigationBarSafeArea);
+                });
+            }
+        }
+    #endif
+
+    #if UNITY_ANDROID && !UNITY_EDITOR && UNITY_2022_2_OR_NEWER
+        // Native memory shared with Java as a direct ByteBuffer so the values never need copying into a new managed array
+        private static NativeArray<byte> displayGeometryBytes;
+        private static IntPtr displayGeometryBufferRef, fillDisplayGeometryMethodId;
+        private static jvalue[] fillDisplayGeometryArgs;
+
+        private static bool SetupDisplayGeometryBufferIfNotSetup() {
+            if (displayGeometryBufferRef != IntPtr.Zero) return true;
+
+            SetupJavaNativeInterfaceIfNotSetup();
+
+            if (!isJNISetup) return false;
+
+            displayGeometryBytes = new NativeArray<byte>(GEOMETRY_SLOT_COUNT * 4, Allocator.Persistent);
+
+            IntPtr localBufferRef = AndroidJNI.NewDirectByteBuffer(displayGeometryBytes);
+            displayGeometryBufferRef = AndroidJNI.NewGlobalRef(localBufferRef);
+            AndroidJNI.DeleteLocalRef(localBufferRef);
+
+            fillDisplayGeometryMethodId = AndroidJNIHelper.GetMethodID(systemInfo.GetRawClass(), "FillDisplayGeometry", "(Landroid/app/Activity;Landroid/content/Context;Ljava/nio/ByteBuffer;)V", true);
+
+            fillDisplayGeometryArgs = new jvalue[3];
+            fillDisplayGeometryArgs[0].l = activity.GetRawObject();
+            fillDisplayGeometryArgs[1].l = context.GetRawObject();
+            fillDisplayGeometryArgs[2].l = displayGeometryBufferRef;
+
+            return true;
+        }
+
+        // Native UTF-16 text shared with Java as a direct ByteBuffer so per frame overlay text doesn't allocate a Java String
+        private static NativeArray<char> overlayTextChars;
+        private static IntPtr overlayTextBufferRef, setTextOverlayBufferMethodId;
+        private static jvalue[] setTextOverlayBufferArgs;
+
+        private static bool SetupOverlayTextBufferIfNotSetup(int length) {
+            if (overlayTextBufferRef != IntPtr.Zero && overlayTextChars.Length >= length) return true;
+
+            SetupJavaNativeInterfaceIfNotSetup();
+
+            if (!isJNISetup) return false;
+
+            // Grow the buffer (rare, only when the text is longer than any before it)
+            if (overlayTextBufferRef != IntPtr.Zero) {
+                AndroidJNI.DeleteGlobalRef(overlayTextBufferRef);
+                overlayTextChars.Dispose();
+            }
+
+            overlayTextChars = new NativeArray<char>(Mathf.Max(length, 256), Allocator.Persistent);
+
+            IntPtr localBufferRef = AndroidJNI.NewDirectByteBuffer(overlayTextChars.Reinterpret<byte>(2));
+            overlayTextBufferRef = AndroidJNI.NewGlobalRef(localBufferRef);
+            AndroidJNI.DeleteLocalRef(localBufferRef);
+
+            if (setTextOverlayBufferMethodId == IntPtr.Zero)
+                setTextOverlayBufferMethodId = AndroidJNIHelper.GetMethodID(toasts.GetRawClass(), "SetTextOverlayBuffer", "(Landroid/app/Activity;Ljava/nio/ByteBuffer;III)V", true);
+
+            setTextOverlayBufferArgs = new jvalue[5];
+            setTextOverlayBufferArgs[0].l = activity.GetRawObject();
+            setTextOverlayBufferArgs[1].l = overlayTextBufferRef;
+
+            return true;
+        }
+    #endif
+
+    #if UNITY_ANDROID && !UNITY_EDITOR
+        // Cached method id and arguments so PlayHapticEffect doesn't box or allocate an argument array per call
+        private static IntPtr playHapticEffectMethodId;
+        private static jvalue[] playHapticEffectArgs;
+
+        private static bool SetupPlayHapticEffectIfNotSetup() {
+            if (playHapticEffectMethodId != IntPtr.Zero) return true;
+
+            SetupJavaNativeInterfaceIfNotSetup();
+
+            if (!isJNISetup) return false;
+
+            playHapticEffectMethodId = AndroidJNIHelper.GetMethodID(hapticEffects.GetRawClass(), "PlayEffect", "(Landroid/content/Context;I)V", true);
+
+            playHapticEffectArgs = new jvalue[2];
+            playHapticEffectArgs[0].l = context.GetRawObject();
+
+            return true;
+        }
+    #endif
+
     void Awake() {
         if (isPluginInterfaceReady)
             Destroy(this);
@@ -114,6 +437,41 @@ public class PickleCore : MonoBehaviour {
         #endif
     }
 
+    #region Warm Up
+        // Fill the native plugin caches (notch detection, app info, installed packages, vibrator, notification schedule) on a
+        // background thread so the first calls into the plugin don't stall the main thread, call this as early as possible
+        // Safe to call if the app already started the warm-up with PickleCoreInitializer, OnWarmUpComplete is still invoked
+        public static void WarmUp() {
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                if (warmUpCallback == null) {
+                    warmUpCallback = new WarmUpCallback();
+                    CallStatic(pluginWarmup, "SetCallback", warmUpCallback);
+                }
+
+                // Start returns the readiness Future which CallStatic<T> can't return, it isn't needed here so release it straight away
+                SetupJavaNativeInterfaceIfNotSetup();
+                pluginWarmup?.CallStatic<AndroidJavaObject>("Start", context)?.Dispose();
+            #endif
+        }
+
+        public static bool IsWarmUpComplete() {
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                return CallStatic<bool>(pluginWarmup, "IsReady");
+            #else
+                return true;
+            #endif
+        }
+
+        // Milliseconds each native subsystem took to warm up, negative if it hasn't finished yet
+        public static Dictionary<string, float> GetWarmUpTimings() {
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                return ToWarmUpTimings(CallStatic<string[]>(pluginWarmup, "GetSubsystemNames"), CallStatic<long[]>(pluginWarmup, "GetSubsystemMicroseconds"));
+            #else
+                return new Dictionary<string, float>();
+            #endif
+        }
+    #endregion
+
     #region Vibration
         public static void DoHapticFeedback(float strength = 1f, bool overrideSystemSettings = false) {
             #if UNITY_ANDROID && !UNITY_EDITOR
@@ -131,17 +489,158 @@ public class PickleCore : MonoBehaviour {
             #endif
         }
         
+        // Pass as the controllerId to target every connected controller
+        public const int ALL_CONTROLLERS = -1;
+
         // If the device has a connected controller with vibration support, this will vibrate the controller
         // Note: Only supported on API 31+ (android 12+) devices
         // Use low frequency motor for intense crashes/explosions and high frequency motor for subtle taps and haptic effects
-        public static void DoControllerVibration(bool useLowFrequencyMotor, long milliseconds, float strength = 1f) {
+        // controllerId is an id from GetVibratingControllerIds() (the Android input device id) or ALL_CONTROLLERS
+        public static void DoControllerVibration(bool useLowFrequencyMotor, long milliseconds, float strength = 1f, int controllerId = ALL_CONTROLLERS) {
             #if UNITY_ANDROID && !UNITY_EDITOR
-                CallStatic(vibration, "DoControllerVibrate", useLowFrequencyMotor, milliseconds, Mathf.Clamp(Mathf.RoundToInt(strength * 255f), 1, 255));
+                CallStatic(vibration, "DoControllerVibrate", context, controllerId, useLowFrequencyMotor, milliseconds, Mathf.Clamp(Mathf.RoundToInt(strength * 255f), 1, 255));
             #elif UNITY_IPHONE && !UNITY_EDITOR
                 // Not yet supported by us
             #endif
         }
 
+        // Drives both controller motors at once so they start together, a strength of 0 leaves that motor off
+        // Note: Only supported on API 31+ (android 12+) devices
+        public static void DoControllerRumble(float lowFrequencyStrength, float highFrequencyStrength, long milliseconds, int controllerId = ALL_CONTROLLERS) {
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                CallStatic(vibration, "DoControllerRumble", context, controllerId, Mathf.Clamp(Mathf.RoundToInt(lowFrequencyStrength * 255f), 0, 255), Mathf.Clamp(Mathf.RoundToInt(highFrequencyStrength * 255f), 0, 255), milliseconds);
+            #endif
+        }
+
+        // Same as DoControllerRumble but each motor follows a strength envelope, timings are milliseconds with a 0 to 1 strength per timing
+        // Either strength array can be null to leave that motor off
+        public static void DoControllerRumble(long[] timings, float[] lowFrequencyStrengths, float[] highFrequencyStrengths, int controllerId = ALL_CONTROLLERS) {
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                CallStatic(controllerHaptics, "RumbleWaveform", context, controllerId, timings, ToAmplitudes(lowFrequencyStrengths), ToAmplitudes(highFrequencyStrengths));
+            #endif
+        }
+
+        // Android input device ids of the connected controllers which can vibrate, kept up to date as controllers connect and disconnect
+        public static int[] GetVibratingControllerIds() {
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                CallStatic(controllerHaptics, "Init", context);
+                return CallStatic<int[]>(controllerHaptics, "GetControllerIds") ?? new int[0];
+            #else
+                return new int[0];
+            #endif
+        }
+
+        // Coalesced versions of DoVibration and DoHapticFeedback for bursts of events (e.g several collisions in one frame)
+        // Requests within the coalesce window are merged into the strongest one and played on a native background thread
+        public static void QueueVibration(long milliseconds, float strength = 1f) {
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                CallStatic(hapticScheduler, "Vibrate", context, milliseconds, Mathf.Clamp(Mathf.RoundToInt(strength * 255f), 1, 255));
+            #else
+                DoVibration(milliseconds, strength);
+            #endif
+        }
+
+        public static void QueueHapticFeedback(float strength = 1f, bool overrideSystemSettings = false) {
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                CallStatic(hapticScheduler, "HapticFeedback", activity, context, Mathf.Clamp(Mathf.RoundToInt(strength * 4f), 1, 4), overrideSystemSettings);
+            #else
+                DoHapticFeedback(strength, overrideSystemSettings);
+            #endif
+        }
+
+        // Defaults to a 16ms coalesce window and at most 20 queued vibrations per second, maxPerSecond of 0 disables the rate limit
+        public static void ConfigureHapticQueue(float coalesceWindowSeconds, int maxPerSecond) {
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                CallStatic(hapticScheduler, "Configure", (long)Mathf.Max(0f, coalesceWindowSeconds * 1000f), maxPerSecond);
+            #endif
+        }
+
+        public static void GetHapticQueueStats(out long requested, out long played, out long merged, out long dropped) {
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                long[] stats = CallStatic<long[]>(hapticScheduler, "GetStats");
+                bool hasStats = stats != null && stats.Length >= 4;
+
+                requested = hasStats ? stats[0] : 0L;
+                played = hasStats ? stats[1] : 0L;
+                merged = hasStats ? stats[2] : 0L;
+                dropped = hasStats ? stats[3] : 0L;
+            #else
+                requested = played = merged = dropped = 0L;
+            #endif
+        }
+
+        // Strengths of 0 to 1 to the 0 to 255 amplitudes used by the native side
+        private static int[] ToAmplitudes(float[] strengths) {
+            if (strengths == null) return null;
+
+            int[] amplitudes = new int[strengths.Length];
+
+            for (int i = 0; i < strengths.Length; i++)
+                amplitudes[i] = Mathf.Clamp(Mathf.RoundToInt(strengths[i] * 255f), 0, 255);
+
+            return amplitudes;
+        }
+
+        // Prebuilt haptic effects, register each effect once (e.g at startup) then play it by id as often as needed
+        // Playing a registered effect doesn't build anything so it's cheap enough for gameplay events like collisions
+        public static bool RegisterHapticOneShot(int effectId, long milliseconds, float strength = 1f) {
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                return CallStatic<bool>(hapticEffects, "RegisterOneShot", effectId, milliseconds, Mathf.Clamp(Mathf.RoundToInt(strength * 255f), 1, 255));
+            #else
+                return false;
+            #endif
+        }
+
+        // Timings alternate off and on durations in milliseconds starting with an off duration, strengths are 0 to 1 per timing (null for on/off)
+        // repeatIndex is the timing index to loop from or -1 to play once, repeating effects play until StopVibration() is called
+        public static bool RegisterHapticWaveform(int effectId, long[] timings, float[] strengths = null, int repeatIndex = -1) {
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                return CallStatic<bool>(hapticEffects, "RegisterWaveform", effectId, timings, ToAmplitudes(strengths), repeatIndex);
+            #else
+                return false;
+            #endif
+        }
+
+        // predefinedEffectId is one of Android's VibrationEffect.EFFECT_* values (API 29+), older devices play fallbackMilliseconds instead
+        public static bool RegisterHapticPredefined(int effectId, int predefinedEffectId, long fallbackMilliseconds = 20L) {
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                return CallStatic<bool>(hapticEffects, "RegisterPredefined", context, effectId, predefinedEffectId, fallbackMilliseconds);
+            #else
+                return false;
+            #endif
+        }
+
+        // primitiveIds are Android's VibrationEffect.Composition.PRIMITIVE_* values (API 30+), scales are 0 to 1 and delays are milliseconds
+        // Returns false if the device doesn't support every primitive, register a one-shot or waveform with the same id as a fallback
+        public static bool RegisterHapticComposition(int effectId, int[] primitiveIds, float[] scales, int[] delays) {
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                return CallStatic<bool>(hapticEffects, "RegisterComposition", context, effectId, primitiveIds, scales, delays);
+            #else
+                return false;
+            #endif
+        }
+
+        public static void UnregisterHapticEffect(int effectId) {
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                CallStatic(hapticEffects, "Unregister", effectId);
+            #endif
+        }
+
+        public static void PlayHapticEffect(int effectId) {
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                if (!SetupPlayHapticEffectIfNotSetup()) return;
+
+                playHapticEffectArgs[1].i = effectId;
+
+                AndroidJNI.CallStaticVoidMethod(hapticEffects.GetRawClass(), playHapticEffectMethodId, playHapticEffectArgs);
+
+                if (AndroidJNI.ExceptionOccurred() != IntPtr.Zero) {
+                    AndroidJNI.ExceptionDescribe();
+                    AndroidJNI.ExceptionClear();
+                }
+            #endif
+        }
+
         public static void StopVibration() {
             #if UNITY_ANDROID && !UNITY_EDITOR
                 CallStatic(vibration, "StopVibrate");
@@ -150,16 +649,105 @@ public class PickleCore : MonoBehaviour {
             #endif
         }
 
-        public static void StopControllerVibration() {
+        // Stops both motors with a single native call
+        public static void StopControllerVibration(int controllerId = ALL_CONTROLLERS) {
             #if UNITY_ANDROID && !UNITY_EDITOR
-                CallStatic(vibration, "DoControllerVibrate", false, 0L, 0);
-                CallStatic(vibration, "DoControllerVibrate", true, 0L, 0);
+                CallStatic(vibration, "StopControllerVibrate", context, controllerId);
             #else
                 // not supported by us
             #endif
         }
     #endregion
 
+    #region ANR Supervisor
+        // Watch the Android main thread for stalls, a stall is reported once the main thread hasn't responded for timeoutSeconds
+        // Notify policy requires UnityMainThreadDispatcher.cs in the scene
+        public static void StartANRSupervisor(float timeoutSeconds = 2f, float checkIntervalSeconds = 5f, ANRPolicy policy = ANRPolicy.Log | ANRPolicy.Kill) {
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                CallStatic(anrSupervisor, "create", (long)(timeoutSeconds * 1000f), (long)(checkIntervalSeconds * 1000f));
+                CallStatic(anrSupervisor, "SetPolicy", (int)policy);
+
+                if ((policy & ANRPolicy.Notify) != 0 && anrCallback == null) {
+                    anrCallback = new ANRCallback();
+                    CallStatic(anrSupervisor, "SetListener", anrCallback);
+                }
+
+                CallStatic(anrSupervisor, "start");
+            #endif
+        }
+
+        public static void StopANRSupervisor() {
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                CallStatic(anrSupervisor, "stop");
+            #endif
+        }
+
+        // Once a stall lasts longer than softThresholdSeconds the main thread stack is sampled every sampleIntervalSeconds
+        // Repeated stacks are merged so up to maxUniqueStacks different stacks are kept for the latest stall
+        // Call after StartANRSupervisor(..)
+        public static void EnableStallProfiler(float softThresholdSeconds = 0.5f, float sampleIntervalSeconds = 0.1f, int maxUniqueStacks = 32) {
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                CallStatic(anrSupervisor, "EnableStallProfiler", (long)(softThresholdSeconds * 1000f), (long)(sampleIntervalSeconds * 1000f), maxUniqueStacks);
+            #endif
+        }
+
+        // Time every message dispatched on the Android main thread to find hitches too short for the ANR supervisor
+        // Messages taking longer than slowThresholdMilliseconds are recorded along with the handler class which ran them
+        public static void StartMainThreadMessageMonitor(float slowThresholdMilliseconds = 16f) {
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                CallStatic(looperMonitor, "Start", (long)(slowThresholdMilliseconds * 1000f));
+            #endif
+        }
+
+        public static void StopMainThreadMessageMonitor() {
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                CallStatic(looperMonitor, "Stop");
+            #endif
+        }
+
+        public static void ResetMainThreadMessageMonitor() {
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                CallStatic(looperMonitor, "Reset");
+            #endif
+        }
+
+        public static MessageLatency GetMainThreadMessageLatency() {
+            MessageLatency latency = new MessageLatency();
+
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                long[] values = CallStatic<long[]>(looperMonitor, "GetLatencyPercentiles");
+
+                if (values != null && values.Length == 5) {
+                    latency.messageCount = values[0];
+                    latency.p50 = values[1] / 1000f;
+                    latency.p95 = values[2] / 1000f;
+                    latency.p99 = values[3] / 1000f;
+                    latency.max = values[4] / 1000f;
+                }
+            #endif
+
+            return latency;
+        }
+
+        // Most recent slow messages newest first, one "<handler class> <duration microseconds>" per line
+        public static string GetSlowMainThreadMessages() {
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                return CallStatic<string>(looperMonitor, "GetSlowMessages");
+            #else
+                return string.Empty;
+            #endif
+        }
+
+        // Compact report of the stacks sampled during the latest stall, useful to send to Crashlytics after OnMainThreadRecovered
+        public static string GetStallReport() {
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                return CallStatic<string>(anrSupervisor, "GetStallReport");
+            #else
+                return string.Empty;
+            #endif
+        }
+    #endregion
+
     #region App Info
         public static long GetAppInstallTimestamp() {
             #if UNITY_ANDROID && !UNITY_EDITOR
@@ -169,6 +757,24 @@ public class PickleCore : MonoBehaviour {
             #endif
         }
         
+        // Everything below in one call, the native side reads the package info once per app launch so this is cheap to call repeatedly
+        public static AppMetadata GetAppMetadata() {
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                long[] values = CallStatic<long[]>(appInfo, "GetAppMetadata", context);
+
+                if (values == null || values.Length < APP_METADATA_SLOT_COUNT) return new AppMetadata { runId = 48276 };
+
+                return new AppMetadata {
+                    installTimestamp = values[APP_METADATA_INSTALL_TIMESTAMP],
+                    initialInstallTimestamp = values[APP_METADATA_INITIAL_INSTALL_TIMESTAMP],
+                    hasBadPermissions = values[APP_METADATA_BAD_PERMISSION_FLAGS] != 0L,
+                    runId = (int)values[APP_METADATA_RUN_ID]
+                };
+            #else
+                return new AppMetadata { installTimestamp = -1L, initialInstallTimestamp = -1L, runId = 30274 };
+            #endif
+        }
+
         // NOTICE: Android 11+ this no longer returns all apps due to a new security policy
         public static string GetPackageList(string searchString = default) {
             #if UNITY_ANDROID && !UNITY_EDITOR
@@ -178,6 +784,37 @@ public class PickleCore : MonoBehaviour {
             #endif
         }
         
+        // Sorted installed package names matching any of the patterns (case insensitive), limit 0 returns every match from the offset
+        // NOTICE: Android 11+ this only includes packages visible to the app, same as GetPackageList(..)
+        public static string[] QueryInstalledPackages(PackageMatch matchMode, string[] patterns = null, int offset = 0, int limit = 0) {
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                return CallStatic<string[]>(installedPackages, "Query", context, (int)matchMode, patterns ?? new string[0], offset, limit) ?? new string[0];
+            #else
+                return new string[0];
+            #endif
+        }
+
+        // Same as QueryInstalledPackages(..) but runs off the Unity main thread, onComplete gets the page and the total match count
+        public static void QueryInstalledPackagesAsync(PackageMatch matchMode, string[] patterns, Action<string[], int> onComplete, int offset = 0, int limit = 0) {
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                CallStatic(installedPackages, "QueryAsync", context, (int)matchMode, patterns ?? new string[0], offset, limit, new PackageQueryCallback(onComplete));
+            #else
+                onComplete?.Invoke(new string[0], 0);
+            #endif
+        }
+
+        // One entry per candidate package name which is true if that exact package is installed, a single native call for the whole batch
+        // NOTICE: Android 11+ this only includes packages visible to the app, same as GetPackageList(..)
+        public static bool[] ArePackagesInstalled(string[] packageNames) {
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                if (packageNames == null || packageNames.Length == 0) return new bool[0];
+
+                return CallStatic<bool[]>(appInfo, "ArePackagesInstalled", context, packageNames) ?? new bool[packageNames.Length];
+            #else
+                return new bool[packageNames != null ? packageNames.Length : 0];
+            #endif
+        }
+
         public static bool DoesAppContainBadPermissions() {
             #if UNITY_ANDROID && !UNITY_EDITOR
                 return CallStatic<bool>(appInfo, "DoesAppContainBadPermissions", context);
@@ -235,6 +872,10 @@ public class PickleCore : MonoBehaviour {
 
         public static Rect GetScreenSafeArea(bool avoidNavigationBar = false) {
             #if UNITY_ANDROID && !UNITY_EDITOR
+                // While safe area updates are running the latest pushed value is always current so skip the native call
+                if (hasPushedSafeArea)
+                    return avoidNavigationBar ? pushedNavigationBarSafeArea : pushedSafeArea;
+
                 int[] safeZoneArray = CallStatic<int[]>(systemInfo, "GetSafeZone", activity, context, avoidNavigationBar);
 
                 if (safeZoneArray != null && safeZoneArray.Length == 4)
@@ -244,6 +885,32 @@ public class PickleCore : MonoBehaviour {
             return Screen.safeArea;
         }
 
+        // Start receiving OnSafeAreaChanged events when the safe area changes (rotation, split-screen, nav bar toggles etc)
+        // An event is sent straight away with the current values and after that only when the values actually change
+        public static void StartSafeAreaUpdates() {
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                if (safeAreaCallback != null) return;
+
+                if (UnityMainThreadDispatcher.instance == null) {
+                    Debug.LogError("PickleCore.StartSafeAreaUpdates() requires UnityMainThreadDispatcher to be in the scene!");
+                    return;
+                }
+
+                safeAreaCallback = new SafeAreaCallback();
+                CallStatic(safeAreaListener, "Register", activity, context, safeAreaCallback);
+            #endif
+        }
+
+        public static void StopSafeAreaUpdates() {
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                if (safeAreaCallback == null) return;
+
+                CallStatic(safeAreaListener, "Unregister");
+                safeAreaCallback = null;
+                hasPushedSafeArea = false;
+            #endif
+        }
+
         public static int GetScreenWidth() {
             #if UNITY_ANDROID && !UNITY_EDITOR
                 return CallStatic<int>(systemInfo, "GetWidth", activity, context);
@@ -260,6 +927,71 @@ public class PickleCore : MonoBehaviour {
             #endif
         }
 
+        // Fetches width, height, density, DPI, notch and both safe areas in one native call
+        // On Unity 2022.2+ the values are read from a buffer reused across calls so refreshing every frame doesn't allocate
+        public static DisplayGeometry GetDisplayGeometry() {
+            DisplayGeometry geometry = new DisplayGeometry();
+
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                int flags = 0;
+
+                #if UNITY_2022_2_OR_NEWER
+                    if (SetupDisplayGeometryBufferIfNotSetup()) {
+                        AndroidJNI.CallStaticVoidMethod(systemInfo.GetRawClass(), fillDisplayGeometryMethodId, fillDisplayGeometryArgs);
+
+                        if (AndroidJNI.ExceptionOccurred() != IntPtr.Zero) {
+                            AndroidJNI.ExceptionDescribe();
+                            AndroidJNI.ExceptionClear();
+                        } else {
+                            NativeArray<int> slots = displayGeometryBytes.Reinterpret<int>(1);
+                            NativeArray<float> floatSlots = displayGeometryBytes.Reinterpret<float>(1);
+
+                            geometry.generation = slots[GEOMETRY_GENERATION];
+                            geometry.width = slots[GEOMETRY_WIDTH];
+                            geometry.height = slots[GEOMETRY_HEIGHT];
+                            geometry.density = slots[GEOMETRY_DENSITY];
+                            geometry.xDPI = floatSlots[GEOMETRY_XDPI];
+                            geometry.yDPI = floatSlots[GEOMETRY_YDPI];
+                            geometry.safeArea = new Rect(slots[GEOMETRY_SAFE_ZONE], slots[GEOMETRY_SAFE_ZONE + 1], slots[GEOMETRY_SAFE_ZONE + 2], slots[GEOMETRY_SAFE_ZONE + 3]);
+                            geometry.navigationBarSafeArea = new Rect(slots[GEOMETRY_NAVBAR_SAFE_ZONE], slots[GEOMETRY_NAVBAR_SAFE_ZONE + 1], slots[GEOMETRY_NAVBAR_SAFE_ZONE + 2], slots[GEOMETRY_NAVBAR_SAFE_ZONE + 3]);
+                            flags = slots[GEOMETRY_FLAGS];
+                        }
+                    }
+                #else
+                    // Older Unity versions can't share a direct buffer so fallback to a returned array (allocates each call)
+                    int[] slots = CallStatic<int[]>(systemInfo, "GetDisplayGeometry", activity, context);
+
+                    if (slots != null && slots.Length == GEOMETRY_SLOT_COUNT) {
+                        geometry.generation = slots[GEOMETRY_GENERATION];
+                        geometry.width = slots[GEOMETRY_WIDTH];
+                        geometry.height = slots[GEOMETRY_HEIGHT];
+                        geometry.density = slots[GEOMETRY_DENSITY];
+                        geometry.xDPI = BitConverter.ToSingle(BitConverter.GetBytes(slots[GEOMETRY_XDPI]), 0);
+                        geometry.yDPI = BitConverter.ToSingle(BitConverter.GetBytes(slots[GEOMETRY_YDPI]), 0);
+                        geometry.safeArea = new Rect(slots[GEOMETRY_SAFE_ZONE], slots[GEOMETRY_SAFE_ZONE + 1], slots[GEOMETRY_SAFE_ZONE + 2], slots[GEOMETRY_SAFE_ZONE + 3]);
+                        geometry.navigationBarSafeArea = new Rect(slots[GEOMETRY_NAVBAR_SAFE_ZONE], slots[GEOMETRY_NAVBAR_SAFE_ZONE + 1], slots[GEOMETRY_NAVBAR_SAFE_ZONE + 2], slots[GEOMETRY_NAVBAR_SAFE_ZONE + 3]);
+                        flags = slots[GEOMETRY_FLAGS];
+                    }
+                #endif
+
+                geometry.hasNotch = (flags & GEOMETRY_FLAG_HAS_NOTCH) != 0;
+
+                // Match GetScreenSafeArea(..) by falling back to the Unity safe area when the plugin had nothing to report
+                if ((flags & GEOMETRY_FLAG_SAFE_ZONE) == 0) geometry.safeArea = Screen.safeArea;
+                if ((flags & GEOMETRY_FLAG_NAVBAR_SAFE_ZONE) == 0) geometry.navigationBarSafeArea = Screen.safeArea;
+            #else
+                geometry.width = Screen.width;
+                geometry.height = Screen.height;
+                geometry.density = Mathf.RoundToInt(Screen.dpi);
+                geometry.xDPI = Screen.dpi;
+                geometry.yDPI = Screen.dpi;
+                geometry.safeArea = Screen.safeArea;
+                geometry.navigationBarSafeArea = Screen.safeArea;
+            #endif
+
+            return geometry;
+        }
+
         public static void OpenSettingsApp() {
             #if UNITY_ANDROID && !UNITY_EDITOR
                 CallStatic(systemInfo, "OpenSettingsApp", activity, context);
@@ -333,6 +1065,46 @@ public class PickleCore : MonoBehaviour {
                 return false;
             #endif
         }
+
+        // Hits and misses of the native resource identifier cache (used for notification icons and system dimension lookups)
+        public static void GetResourceIdCacheStats(out long hits, out long misses) {
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                long[] stats = CallStatic<long[]>(resourceIds, "GetCacheStats");
+
+                hits = stats != null && stats.Length > 0 ? stats[0] : 0L;
+                misses = stats != null && stats.Length > 1 ? stats[1] : 0L;
+            #else
+                hits = 0L;
+                misses = 0L;
+            #endif
+        }
+
+        // Queue depths and latencies of the native main thread dispatcher and background pool, useful for spotting plugin work piling up
+        public static ExecutorMetrics GetExecutorMetrics() {
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                long[] values = CallStatic<long[]>(pluginExecutors, "GetMetrics");
+
+                if (values == null || values.Length < EXECUTOR_METRIC_COUNT) return new ExecutorMetrics();
+
+                return new ExecutorMetrics {
+                    backgroundQueueDepth = values[0],
+                    backgroundActive = values[1],
+                    backgroundCompleted = values[2],
+                    backgroundAvgWaitMicros = values[3],
+                    backgroundMaxWaitMicros = values[4],
+                    backgroundAvgRunMicros = values[5],
+                    backgroundMaxRunMicros = values[6],
+                    backgroundRejected = values[7],
+                    mainPending = values[8],
+                    mainCompleted = values[9],
+                    mainAvgWaitMicros = values[10],
+                    mainMaxWaitMicros = values[11],
+                    mainCoalesced = values[12]
+                };
+            #else
+                return new ExecutorMetrics();
+            #endif
+        }
     #endregion
 
     #region Toasts
@@ -369,11 +1141,79 @@ public class PickleCore : MonoBehaviour {
             #endif
         }
         
+        // Same as ShowTextOverlay but meant for text updated every frame (e.g an FPS or debug HUD), only the latest text is applied
+        // once per display frame and unchanged text is skipped, on Unity 2022.2+ the text is passed without allocating a Java string
+        // fontSize and backgroundOpacity are only used when the overlay isn't already showing
+        public static void SetTextOverlayText(string message, int fontSize, float backgroundOpacity) {
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                int backgroundAlpha = Mathf.Clamp(Mathf.RoundToInt(backgroundOpacity * 255f), 0, 255);
+
+                #if UNITY_2022_2_OR_NEWER
+                    if (message != null && SetupOverlayTextBufferIfNotSetup(message.Length)) {
+                        for (int i = 0; i < message.Length; i++)
+                            overlayTextChars[i] = message[i];
+
+                        setTextOverlayBufferArgs[2].i = message.Length;
+                        setTextOverlayBufferArgs[3].i = fontSize;
+                        setTextOverlayBufferArgs[4].i = backgroundAlpha;
+
+                        AndroidJNI.CallStaticVoidMethod(toasts.GetRawClass(), setTextOverlayBufferMethodId, setTextOverlayBufferArgs);
+
+                        if (AndroidJNI.ExceptionOccurred() != IntPtr.Zero) {
+                            AndroidJNI.ExceptionDescribe();
+                            AndroidJNI.ExceptionClear();
+                        }
+
+                        return;
+                    }
+                #endif
+
+                CallStatic(toasts, "SetTextOverlayText", activity, message, fontSize, backgroundAlpha);
+            #else
+                Debug.Log("Text overlay not supported on this platform: " + message);
+            #endif
+        }
+
         public static void HideTextOverlay() {
             #if UNITY_ANDROID && !UNITY_EDITOR
                 CallStatic(toasts, "HideTextOverlay", activity);
             #endif
         }
+
+        // Multiple text overlay panels identified by overlayId, changes to every panel are applied together once per display frame
+        // offset is in pixels from the anchored edge, panels which are never configured are placed like ShowTextOverlay
+        public static void ConfigureTextOverlay(int overlayId, OverlayGravity gravity, Vector2Int offset, int fontSize, float backgroundOpacity) {
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                CallStatic(textOverlays, "Configure", overlayId, (int)gravity, offset.x, offset.y, fontSize, Mathf.Clamp(Mathf.RoundToInt(backgroundOpacity * 255f), 0, 255));
+            #endif
+        }
+
+        public static void ShowTextOverlay(int overlayId, string message) {
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                CallStatic(textOverlays, "Show", activity, overlayId, message);
+            #else
+                Debug.Log("Text overlay " + overlayId + " not supported on this platform: " + message);
+            #endif
+        }
+
+        // Hidden panels keep their view and configuration so showing them again is cheap
+        public static void HideTextOverlay(int overlayId) {
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                CallStatic(textOverlays, "Hide", overlayId);
+            #endif
+        }
+
+        public static void RemoveTextOverlay(int overlayId) {
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                CallStatic(textOverlays, "Remove", overlayId);
+            #endif
+        }
+
+        public static void RemoveAllTextOverlays() {
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                CallStatic(textOverlays, "RemoveAll");
+            #endif
+        }
     #endregion
 
     #region Local Notifications
@@ -389,18 +1229,110 @@ public class PickleCore : MonoBehaviour {
             #endif
         }
 
+        // Create many groups and channels in a single call, the groups are created first so channels can reference them
+        public static void RegisterChannels(NotificationGroupSpec[] groups, NotificationChannelSpec[] channels) {
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                groups = groups ?? new NotificationGroupSpec[0];
+                channels = channels ?? new NotificationChannelSpec[0];
+
+                string[] groupIds = new string[groups.Length];
+                string[] groupNames = new string[groups.Length];
+
+                for (int i = 0; i < groups.Length; i++) {
+                    groupIds[i] = groups[i].groupId;
+                    groupNames[i] = groups[i].groupName;
+                }
+
+                int count = channels.Length;
+                string[] channelIds = new string[count];
+                string[] channelGroupIds = new string[count];
+                string[] channelNames = new string[count];
+                string[] channelDescriptions = new string[count];
+                bool[] showOnStatusBar = new bool[count];
+                bool[] playSound = new bool[count];
+                bool[] showHeadsUp = new bool[count];
+
+                for (int i = 0; i < count; i++) {
+                    channelIds[i] = channels[i].channelId;
+                    channelGroupIds[i] = channels[i].groupId;
+                    channelNames[i] = channels[i].channelName;
+                    channelDescriptions[i] = channels[i].channelDescription;
+                    showOnStatusBar[i] = channels[i].showOnStatusBar;
+                    playSound[i] = channels[i].playSound;
+                    showHeadsUp[i] = channels[i].showHeadsUp;
+                }
+
+                CallStatic(localNotifications, "RegisterChannels", context, groupIds, groupNames, channelIds, channelGroupIds, channelNames, channelDescriptions, showOnStatusBar, playSound, showHeadsUp);
+            #endif
+        }
+
         public static void SendNotification(int notificationId, string channelId, string messageTitle, string messageBody, int sendAfterSeconds, string smallIconName, string largeIconName = "", bool dismissAfterTapped = true) {
             #if UNITY_ANDROID && !UNITY_EDITOR
                 CallStatic(localNotifications, "SendNotification", context, activity, notificationId, channelId, messageTitle, messageBody, sendAfterSeconds, smallIconName, largeIconName, dismissAfterTapped);
             #endif
         }
 
+        // Schedule many notifications in a single call, cheaper than calling SendNotification(..) for each one
+        // as only the nearest notification registers a device wake-up and the rest are re-armed as each one is delivered
+        public static void SendNotifications(NotificationSpec[] notifications) {
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                if (notifications == null || notifications.Length == 0) return;
+
+                int count = notifications.Length;
+                int[] notificationIds = new int[count];
+                string[] channelIds = new string[count];
+                string[] messageTitles = new string[count];
+                string[] messageBodies = new string[count];
+                int[] sendAfterSeconds = new int[count];
+                string[] smallIconNames = new string[count];
+                string[] largeIconNames = new string[count];
+                bool[] dismissAfterTapped = new bool[count];
+
+                for (int i = 0; i < count; i++) {
+                    notificationIds[i] = notifications[i].notificationId;
+                    channelIds[i] = notifications[i].channelId;
+                    messageTitles[i] = notifications[i].messageTitle;
+                    messageBodies[i] = notifications[i].messageBody;
+                    sendAfterSeconds[i] = notifications[i].sendAfterSeconds;
+                    smallIconNames[i] = notifications[i].smallIconName;
+                    largeIconNames[i] = notifications[i].largeIconName ?? "";
+                    dismissAfterTapped[i] = notifications[i].dismissAfterTapped;
+                }
+
+                CallStatic(localNotifications, "SendNotifications", context, activity, notificationIds, channelIds, messageTitles, messageBodies, sendAfterSeconds, smallIconNames, largeIconNames, dismissAfterTapped);
+            #endif
+        }
+
         public static void CancelNotification(int notificationId) {
             #if UNITY_ANDROID && !UNITY_EDITOR
                 CallStatic(localNotifications, "CancelNotification", context, activity, notificationId);
             #endif
         }
         
+        // Every scheduled notification which hasn't been delivered or cancelled yet (these persist across reboots and app updates)
+        public static PendingNotification[] GetPendingNotifications() {
+            #if UNITY_ANDROID && !UNITY_EDITOR
+                // Flattened as 5 values per notification: id, channel id, trigger time (unix milliseconds), title, body
+                string[] values = CallStatic<string[]>(localNotifications, "GetPendingNotifications", context);
+
+                if (values == null) return new PendingNotification[0];
+
+                PendingNotification[] pendingNotifications = new PendingNotification[values.Length / 5];
+
+                for (int i = 0; i < pendingNotifications.Length; i++) {
+                    pendingNotifications[i].notificationId = int.Parse(values[i * 5]);
+                    pendingNotifications[i].channelId = values[i * 5 + 1];
+                    pendingNotifications[i].fireTimeUtc = DateTimeOffset.FromUnixTimeMilliseconds(long.Parse(values[i * 5 + 2])).UtcDateTime;
+                    pendingNotifications[i].messageTitle = values[i * 5 + 3];
+                    pendingNotifications[i].messageBody = values[i * 5 + 4];
+                }
+
+                return pendingNotifications;
+            #else
+                return new PendingNotification[0];
+            #endif
+        }
+
         public static string GetLaunchIntentExtras() {
             #if UNITY_ANDROID && !UNITY_EDITOR
                 return CallStatic<string>(localNotifications, "GetLaunchIntentExtras", activity);